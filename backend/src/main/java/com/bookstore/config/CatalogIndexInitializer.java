@@ -0,0 +1,30 @@
+package com.bookstore.config;
+
+import com.bookstore.dao.BookDao;
+import com.bookstore.service.CatalogPublisher;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class loads the in-memory catalog indexes when the application starts.
+ * It hands every book to the registered CatalogObservers once; after that they are
+ * kept current by the write paths in BookServiceImpl.
+ * The load runs once all singletons exist but before the web server starts accepting
+ * requests, so search is never served from an empty index and no book write can commit
+ * between reading the catalog and publishing it.
+ */
+@Component
+public class CatalogIndexInitializer implements SmartInitializingSingleton {
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private CatalogPublisher catalogPublisher;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        catalogPublisher.publishLoaded(bookDao.findAll());
+    }
+}
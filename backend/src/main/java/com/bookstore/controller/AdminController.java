@@ -1,19 +1,48 @@
 package com.bookstore.controller;
 
+import com.bookstore.dao.KeysetCursor;
+import com.bookstore.dao.OrderDao;
+import com.bookstore.dto.BulkStatusResultDTO;
+import com.bookstore.dto.BulkStatusUpdateDTO;
+import com.bookstore.dto.ImportResultDTO;
 import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderSearchCriteria;
+import com.bookstore.dto.PromotionDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Order;
 import com.bookstore.model.OrderStatus;
-import com.bookstore.repository.OrderRepository;
+import com.bookstore.service.BookCache;
+import com.bookstore.service.BookExportService;
+import com.bookstore.service.BookImportService;
+import com.bookstore.service.FeedFormat;
+import com.bookstore.service.OrderMapper;
+import com.bookstore.service.OrderService;
+import com.bookstore.service.PromotionService;
+import com.bookstore.service.SalesService;
+import com.bookstore.util.BoundedCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,25 +52,64 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    private static final int DEFAULT_SALES_DAYS = 30;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesService salesService;
+
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private BookCache bookCache;
+
     @Autowired
-    private OrderRepository orderRepository;
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookExportService bookExportService;
 
     /**
      * Get all orders with pagination
      * @param page Page number
      * @param size Page size
+     * @param cursor Keyset cursor; when present (empty for the first page) the orders are
+     *               returned as a CursorPage sorted by sortBy/direction, without a total count
+     * @param sortBy Keyset sort field: id or orderDate
+     * @param direction Keyset sort direction
      * @return Page of orders
      */
     @GetMapping("/orders")
     public ResponseEntity<?> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction) {
         try {
+            if (cursor != null) {
+                KeysetCursor position = cursor.isEmpty()
+                        ? KeysetCursor.first(sortBy, direction.equalsIgnoreCase("desc"))
+                        : KeysetCursor.decode(cursor);
+                return ResponseEntity.ok(orderDao.findAllWithDetails(position, size).toCursorPage(orderMapper::toDTO));
+            }
+
             Pageable pageable = PageRequest.of(page, size);
-            Page<Order> ordersPage = orderRepository.findAll(pageable);
+            Page<Order> ordersPage = orderDao.findAllWithDetails(pageable);
 
             List<OrderDTO> orderDTOs = ordersPage.getContent().stream()
-                    .map(this::convertToOrderDTO)
+                    .map(orderMapper::toDTO)
                     .collect(Collectors.toList());
 
             Page<OrderDTO> orderDTOPage = new PageImpl<>(
@@ -56,6 +124,266 @@ public class AdminController {
         }
     }
 
+    /**
+     * Search orders, keyset paged
+     * @param status Only orders in these statuses
+     * @param from Only orders placed at or after this time (ISO date-time)
+     * @param to Only orders placed before this time (ISO date-time)
+     * @param username Only orders of this customer
+     * @param minAmount Lowest total amount
+     * @param maxAmount Highest total amount
+     * @param cursor nextCursor of the previous page; omit for the first page. Pass the same filters
+     *               with every page
+     * @param size Page size
+     * @param sortBy Sort field: orderDate, id or totalAmount
+     * @param direction Sort direction
+     * @return Matching orders; the first page carries a capped match count
+     */
+    @GetMapping("/orders/search")
+    public ResponseEntity<?> searchOrders(
+            @RequestParam(required = false) List<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction) {
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Page size must be between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        try {
+            KeysetCursor position = cursor == null || cursor.isEmpty()
+                    ? KeysetCursor.first(sortBy, direction.equalsIgnoreCase("desc"))
+                    : KeysetCursor.decode(cursor);
+            OrderSearchCriteria criteria = new OrderSearchCriteria(status, from, to, username, minAmount, maxAmount);
+            return ResponseEntity.ok(orderService.searchOrders(criteria, position, size));
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error searching orders: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update the status of many orders at once
+     * @param request Target status, order ids or a search filter, and optional tracking numbers by order id
+     * @return Result per order id: UPDATED, NOT_FOUND, or REJECTED when its current status
+     *         cannot move to the target status
+     */
+    @PostMapping("/orders/status")
+    public ResponseEntity<?> updateOrderStatuses(@Valid @RequestBody BulkStatusUpdateDTO request) {
+        try {
+            BulkStatusResultDTO result = orderService.updateStatuses(request);
+            return ResponseEntity.ok(result);
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error updating order statuses: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk import books from a CSV or NDJSON feed streamed in the request body
+     * @param format "csv" or "ndjson"; defaults from the Content-Type, then to CSV
+     * @param request Request whose body is the feed; CSV needs a header row
+     * @return Import counts and the first rejected rows
+     */
+    @PostMapping("/books/import")
+    public ResponseEntity<?> importBooks(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        try {
+            FeedFormat feedFormat = FeedFormat.resolve(format, request.getContentType());
+            ImportResultDTO result = bookImportService.importBooks(request.getInputStream(), feedFormat);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid import format: " + format);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error importing books: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export the whole catalog, streamed straight to the response
+     * @param format "csv" or "ndjson"
+     * @return Streaming feed in the same columns the import accepts
+     */
+    @GetMapping("/books/export")
+    public ResponseEntity<?> exportBooks(@RequestParam(defaultValue = "csv") String format) {
+        FeedFormat feedFormat;
+        try {
+            feedFormat = FeedFormat.resolve(format, null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid export format: " + format);
+        }
+        StreamingResponseBody body = out -> bookExportService.exportBooks(out, feedFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(feedFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("books." + feedFormat.name().toLowerCase(Locale.ROOT))
+                        .build().toString())
+                .body(body);
+    }
+
+    /**
+     * Get revenue, orders and units per day, read from the sales rollups
+     * @param from First day, inclusive; defaults to 30 days before to
+     * @param to Last day, inclusive; defaults to today
+     * @return One entry per day with sales
+     */
+    @GetMapping("/sales/daily")
+    public ResponseEntity<?> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_SALES_DAYS);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from must not be after to");
+        }
+        return ResponseEntity.ok(salesService.getDailySales(start, end));
+    }
+
+    /**
+     * Get the best selling books by units, read from the sales rollups
+     * @param from First day, inclusive; defaults to 30 days before to
+     * @param to Last day, inclusive; defaults to today
+     * @param limit Number of books
+     * @return Books with units and revenue
+     */
+    @GetMapping("/sales/books")
+    public ResponseEntity<?> getTopBookSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_SALES_DAYS);
+        if (start.isAfter(end) || limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Invalid date range or limit");
+        }
+        return ResponseEntity.ok(salesService.getTopBooks(start, end, limit));
+    }
+
+    /**
+     * Get units and revenue per category, read from the sales rollups
+     * @param from First day, inclusive; defaults to 30 days before to
+     * @param to Last day, inclusive; defaults to today
+     * @return Categories by revenue
+     */
+    @GetMapping("/sales/categories")
+    public ResponseEntity<?> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_SALES_DAYS);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from must not be after to");
+        }
+        return ResponseEntity.ok(salesService.getCategorySales(start, end));
+    }
+
+    /**
+     * Recompute the sales rollups from the full order history, e.g. after first deployment
+     * @return No content
+     */
+    @PostMapping("/sales/rebuild")
+    public ResponseEntity<?> rebuildSales() {
+        try {
+            salesService.rebuild();
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error rebuilding sales: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get all promotions, including inactive ones
+     * @return List of promotions
+     */
+    @GetMapping("/promotions")
+    public ResponseEntity<List<PromotionDTO>> getAllPromotions() {
+        return ResponseEntity.ok(promotionService.getAllPromotions());
+    }
+
+    /**
+     * Create a promotion; it applies to checkout as soon as it is saved
+     * @param promotionDTO Promotion data
+     * @return Created promotion
+     */
+    @PostMapping("/promotions")
+    public ResponseEntity<?> createPromotion(@Valid @RequestBody PromotionDTO promotionDTO) {
+        try {
+            PromotionDTO created = promotionService.createPromotion(promotionDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error creating promotion: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update a promotion
+     * @param id Promotion ID
+     * @param promotionDTO Promotion data
+     * @return Updated promotion
+     */
+    @PutMapping("/promotions/{id}")
+    public ResponseEntity<?> updatePromotion(@PathVariable Long id, @Valid @RequestBody PromotionDTO promotionDTO) {
+        try {
+            PromotionDTO updated = promotionService.updatePromotion(id, promotionDTO);
+            return ResponseEntity.ok(updated);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error updating promotion: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a promotion
+     * @param id Promotion ID
+     * @return No content
+     */
+    @DeleteMapping("/promotions/{id}")
+    public ResponseEntity<?> deletePromotion(@PathVariable Long id) {
+        try {
+            promotionService.deletePromotion(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error deleting promotion: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get hit/miss/eviction counters of the product page cache
+     * @return Cache statistics
+     */
+    @GetMapping("/cache/books/stats")
+    public ResponseEntity<BoundedCache.CacheStats> getBookCacheStats() {
+        return ResponseEntity.ok(bookCache.stats());
+    }
+
     /**
      * Get order by ID
      * @param id Order ID
@@ -64,12 +392,12 @@ public class AdminController {
     @GetMapping("/orders/{id}")
     public ResponseEntity<?> getOrderById(@PathVariable Long id) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(id);
+            Optional<Order> orderOpt = orderDao.findByIdWithDetails(id);
             if (orderOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            OrderDTO orderDTO = convertToOrderDTO(orderOpt.get());
+            OrderDTO orderDTO = orderMapper.toDTO(orderOpt.get());
             return ResponseEntity.ok(orderDTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error fetching order: " + e.getMessage());
@@ -87,71 +415,27 @@ public class AdminController {
             @PathVariable Long id,
             @RequestBody Map<String, Object> statusUpdate) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(id);
-            if (orderOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Order order = orderOpt.get();
-
-            // Update status
+            // Parse status
+            OrderStatus newStatus = null;
             String statusStr = (String) statusUpdate.get("status");
             if (statusStr != null && !statusStr.isEmpty()) {
                 try {
-                    OrderStatus newStatus = OrderStatus.valueOf(statusStr);
-                    order.setStatus(newStatus);
+                    newStatus = OrderStatus.valueOf(statusStr);
                 } catch (IllegalArgumentException e) {
                     return ResponseEntity.badRequest().body("Invalid status: " + statusStr);
                 }
             }
 
-            // Update tracking number if provided
+            // Tracking number if provided
             Object trackingNumberObj = statusUpdate.get("trackingNumber");
-            if (trackingNumberObj != null) {
-                String trackingNumber = trackingNumberObj.toString();
-                order.setTrackingNumber(trackingNumber);
-            }
-
-            // Save updated order
-            Order updatedOrder = orderRepository.save(order);
-            OrderDTO orderDTO = convertToOrderDTO(updatedOrder);
+            String trackingNumber = trackingNumberObj != null ? trackingNumberObj.toString() : null;
 
+            OrderDTO orderDTO = orderService.updateStatus(id, newStatus, trackingNumber);
             return ResponseEntity.ok(orderDTO);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating order status: " + e.getMessage());
         }
     }
-
-    /**
-     * Convert Order entity to OrderDTO
-     * @param order Order entity
-     * @return OrderDTO
-     */
-    private OrderDTO convertToOrderDTO(Order order) {
-        OrderDTO orderDTO = new OrderDTO();
-        orderDTO.setId(order.getId());
-        orderDTO.setUserId(order.getUser().getId());
-        orderDTO.setUsername(order.getUser().getUsername());
-        orderDTO.setOrderDate(order.getOrderDate());
-        orderDTO.setStatus(order.getStatus());
-        orderDTO.setTotalAmount(order.getTotalAmount());
-        orderDTO.setShippingAddress(order.getShippingAddress());
-        orderDTO.setTrackingNumber(order.getTrackingNumber());
-
-        // Convert order items
-        orderDTO.setOrderItems(order.getOrderItems().stream()
-                .map(item -> {
-                    var itemDTO = new com.bookstore.dto.OrderItemDTO();
-                    itemDTO.setId(item.getId());
-                    itemDTO.setBookId(item.getBook().getId());
-                    itemDTO.setBookTitle(item.getBook().getTitle());
-                    itemDTO.setQuantity(item.getQuantity());
-                    itemDTO.setPrice(item.getPrice());
-                    itemDTO.setSubtotal(item.getSubtotal());
-                    return itemDTO;
-                })
-                .collect(Collectors.toSet()));
-
-        return orderDTO;
-    }
 }
@@ -1,34 +1,58 @@
 package com.bookstore.controller;
 
+import com.bookstore.dao.KeysetCursor;
 import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetedBooksDTO;
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.search.FacetQuery;
+import com.bookstore.util.JsonSnapshot;
 import com.bookstore.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final int MAX_SUGGESTIONS = 20;
+
     @Autowired
     private BookService bookService;
 
+    /**
+     * List books, offset paged by default.
+     * Passing a cursor (empty for the first page) switches to keyset paging, which returns
+     * a CursorPage without a total count; its nextCursor fetches the following page.
+     */
     @GetMapping
-    public ResponseEntity<Page<BookDTO>> getAllBooks(
+    public ResponseEntity<?> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            CursorPage<BookDTO> books = bookService.getAllBooks(toKeysetCursor(cursor, sortBy, direction), size);
+            return ResponseEntity.ok(books);
+        }
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
@@ -67,30 +91,92 @@ public class BookController {
     @GetMapping("/search")
     public ResponseEntity<Page<BookDTO>> searchBooks(
             @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<BookDTO> books = bookService.searchBooks(query, pageable);
+        Page<BookDTO> books = bookService.searchBooks(query, fuzzy, pageable);
         
         return ResponseEntity.ok(books);
     }
 
-    @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Page<BookDTO>> getBooksByCategory(
-            @PathVariable Long categoryId,
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggestBooks(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        List<SuggestionDTO> suggestions = bookService.suggestBooks(prefix, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(suggestions);
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<FacetedBooksDTO> browseBooks(
+            @RequestParam(required = false) Set<Long> categoryId,
+            @RequestParam(required = false) Set<String> priceBucket,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Set<String> author,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
+        FacetQuery query = new FacetQuery(
+                categoryId != null ? categoryId : new HashSet<>(),
+                priceBucket != null ? priceBucket : new HashSet<>(),
+                inStock,
+                author != null ? author : new HashSet<>());
         Pageable pageable = PageRequest.of(page, size);
+        FacetedBooksDTO result = bookService.browseBooks(query, pageable);
+        
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/category/{categoryId}")
+    public ResponseEntity<?> getBooksByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor) {
+        
+        if (cursor != null) {
+            CursorPage<BookDTO> books = bookService.getBooksByCategory(
+                    categoryId, toKeysetCursor(cursor, sortBy, direction), size);
+            return ResponseEntity.ok(books);
+        }
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         Page<BookDTO> books = bookService.getBooksByCategory(categoryId, pageable);
         
         return ResponseEntity.ok(books);
     }
 
+    /**
+     * Recent books, served from a pre-serialized snapshot.
+     * Clients that send back the ETag get 304 Not Modified until a book is added or changed.
+     */
     @GetMapping("/recent")
-    public ResponseEntity<List<BookDTO>> getRecentBooks() {
-        List<BookDTO> books = bookService.getRecentBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<byte[]> getRecentBooks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        JsonSnapshot snapshot = bookService.getRecentBooksSnapshot();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    // Helper method to start a keyset listing or continue one; the token carries its own sort
+    private KeysetCursor toKeysetCursor(String cursor, String sortBy, String direction) {
+        return cursor.isEmpty()
+                ? KeysetCursor.first(sortBy, direction.equalsIgnoreCase("desc"))
+                : KeysetCursor.decode(cursor);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.bookstore.controller;
+
+import com.bookstore.dto.CartDTO;
+import com.bookstore.dto.CartItemDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.service.CartService;
+import com.bookstore.service.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/cart")
+public class CartController {
+
+    @Autowired
+    private CartService cartService;
+
+    /**
+     * Get current user's cart with current prices and promotions applied
+     * @param couponCode Optional coupon to preview
+     * @return Cart contents and totals
+     */
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getCart(@RequestParam(required = false) String couponCode) {
+        try {
+            CartDTO cart = cartService.getCart(getCurrentUserDetails().getId(), couponCode);
+            return ResponseEntity.ok(cart);
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error fetching cart: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a book to the cart, on top of any copies already in it
+     * @param item Book ID and quantity
+     * @return Updated cart
+     */
+    @PostMapping("/items")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> addItem(@Valid @RequestBody CartItemDTO item) {
+        try {
+            CartDTO cart = cartService.addItem(getCurrentUserDetails().getId(), item.getBookId(), item.getQuantity());
+            return ResponseEntity.ok(cart);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error adding to cart: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set the quantity of a book in the cart
+     * @param bookId Book ID
+     * @param item New quantity; 0 removes the book
+     * @return Updated cart
+     */
+    @PutMapping("/items/{bookId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> updateItem(@PathVariable Long bookId, @RequestBody CartItemDTO item) {
+        if (item.getQuantity() == null || item.getQuantity() < 0) {
+            return ResponseEntity.badRequest().body("Quantity must be zero or positive");
+        }
+        try {
+            CartDTO cart = cartService.updateItem(getCurrentUserDetails().getId(), bookId, item.getQuantity());
+            return ResponseEntity.ok(cart);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error updating cart: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a book from the cart
+     * @param bookId Book ID
+     * @return Updated cart
+     */
+    @DeleteMapping("/items/{bookId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> removeItem(@PathVariable Long bookId) {
+        try {
+            CartDTO cart = cartService.removeItem(getCurrentUserDetails().getId(), bookId);
+            return ResponseEntity.ok(cart);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error updating cart: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Empty the cart
+     * @return No content
+     */
+    @DeleteMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> clearCart() {
+        cartService.clearCart(getCurrentUserDetails().getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get current user details
+     * @return UserDetailsImpl
+     */
+    private UserDetailsImpl getCurrentUserDetails() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (UserDetailsImpl) authentication.getPrincipal();
+    }
+}
@@ -1,17 +1,26 @@
 package com.bookstore.controller;
 
+import com.bookstore.dao.OrderDao;
 import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderIntakeDTO;
 import com.bookstore.dto.OrderItemDTO;
-import com.bookstore.model.Book;
+import com.bookstore.dto.StreamTokenDTO;
+import com.bookstore.exception.BadRequestException;
 import com.bookstore.model.Order;
-import com.bookstore.model.OrderItem;
 import com.bookstore.model.User;
-import com.bookstore.repository.BookRepository;
-import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.UserRepository;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.security.JwtUtils;
+import com.bookstore.service.IdempotencyStore;
+import com.bookstore.service.OrderEventHub;
+import com.bookstore.service.OrderIntake;
+import com.bookstore.service.OrderMapper;
+import com.bookstore.service.OrderService;
 import com.bookstore.service.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -19,75 +28,107 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.math.BigDecimal;
+import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_INTAKE_WAIT_SECONDS = 30;
+
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderDao orderDao;
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private BookRepository bookRepository;
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OrderIntake orderIntake;
+
+    @Autowired
+    private OrderEventHub orderEventHub;
+
+    @Autowired
+    private JwtUtils jwtUtils;
 
     /**
      * Create a new order
      * @param orderDTO Order data
+     * @param idempotencyKey Optional client key; a retry with the same key and body gets the
+     *                       original response instead of placing the order again
      * @return Created order
      */
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderDTO orderDTO) {
+    public ResponseEntity<?> createOrder(
+            @Valid @RequestBody OrderDTO orderDTO,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
             // Get current user
             UserDetailsImpl userDetails = getCurrentUserDetails();
-            User user = userRepository.findById(userDetails.getId())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Create new order
-            Order order = new Order();
-            order.setUser(user);
-            order.setShippingAddress(orderDTO.getShippingAddress());
-            order.setTotalAmount(orderDTO.getTotalAmount());
-
-            // Add order items
-            for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
-                Book book = bookRepository.findById(itemDTO.getBookId())
-                        .orElseThrow(() -> new RuntimeException("Book not found: " + itemDTO.getBookId()));
-
-                // Check if book is in stock
-                if (book.getStockQuantity() < itemDTO.getQuantity()) {
-                    return ResponseEntity
-                            .badRequest()
-                            .body("Not enough stock for book: " + book.getTitle());
+            IdempotencyStore.Claim claim = null;
+            if (idempotencyKey != null) {
+                if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+                    return ResponseEntity.badRequest().body("Invalid " + IDEMPOTENCY_KEY_HEADER);
+                }
+                claim = idempotencyStore.claim(userDetails.getId(), idempotencyKey, orderDTO);
+                switch (claim.getState()) {
+                    case REPLAY:
+                        return ResponseEntity.status(HttpStatus.CREATED)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header(IDEMPOTENT_REPLAY_HEADER, "true")
+                                .body(claim.getResponse());
+                    case IN_PROGRESS:
+                        return ResponseEntity.status(HttpStatus.CONFLICT)
+                                .body("A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress");
+                    case MISMATCH:
+                        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                                .body(IDEMPOTENCY_KEY_HEADER + " was already used for a different order");
+                    default:
+                        break;
                 }
-
-                // Create order item
-                OrderItem orderItem = new OrderItem();
-                orderItem.setBook(book);
-                orderItem.setQuantity(itemDTO.getQuantity());
-                orderItem.setPrice(book.getPrice());
-                order.addOrderItem(orderItem);
-
-                // Update book stock
-                book.setStockQuantity(book.getStockQuantity() - itemDTO.getQuantity());
-                bookRepository.save(book);
             }
 
-            // Calculate total amount
-            order.calculateTotalAmount();
+            OrderDTO responseDTO;
+            try {
+                responseDTO = orderService.createOrder(userDetails.getId(), orderDTO, claim);
+            } catch (RuntimeException e) {
+                // Nothing was stored under the key, so a retry may place the order
+                if (claim != null) {
+                    idempotencyStore.release(claim);
+                }
+                throw e;
+            }
 
-            // Save order
-            Order savedOrder = orderRepository.save(order);
+            // Feed the sales weights used to rank autocomplete suggestions
+            for (OrderItemDTO item : responseDTO.getOrderItems()) {
+                bookSuggestIndex.recordSale(item.getBookId(), item.getQuantity());
+            }
 
-            // Convert to DTO for response
-            OrderDTO responseDTO = convertToOrderDTO(savedOrder);
             return new ResponseEntity<>(responseDTO, HttpStatus.CREATED);
+        } catch (BadRequestException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -95,6 +136,85 @@ public class OrderController {
         }
     }
 
+    /**
+     * Queue a new order for asynchronous placement
+     * @param orderDTO Order data
+     * @return 202 with a ticket to poll, or 503 while the intake queue is full
+     */
+    @PostMapping("/intake")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> submitOrder(@Valid @RequestBody OrderDTO orderDTO) {
+        UserDetailsImpl userDetails = getCurrentUserDetails();
+        Optional<OrderIntakeDTO> ticket = orderIntake.submit(userDetails.getId(), orderDTO);
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Order intake is busy, please retry");
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/intake/" + ticket.get().getTicket()))
+                .body(ticket.get());
+    }
+
+    /**
+     * Get the status of a queued order
+     * @param ticket Ticket returned when the order was queued
+     * @param waitSeconds Seconds to wait for a final status before answering (long polling)
+     * @return Ticket status
+     */
+    @GetMapping("/intake/{ticket}")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<OrderIntakeDTO>> getIntakeStatus(
+            @PathVariable String ticket,
+            @RequestParam(defaultValue = "0") int waitSeconds) {
+        UserDetailsImpl userDetails = getCurrentUserDetails();
+        Optional<OrderIntake.Ticket> found = orderIntake.findTicket(ticket, userDetails.getId());
+        if (found.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        OrderIntake.Ticket intakeTicket = found.get();
+        if (waitSeconds <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(intakeTicket.current()));
+        }
+        return intakeTicket.getResult()
+                .copy()
+                .completeOnTimeout(intakeTicket.current(), Math.min(waitSeconds, MAX_INTAKE_WAIT_SECONDS),
+                        TimeUnit.SECONDS)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Issue a short-lived token for the order event stream.
+     * Browsers open the stream with EventSource, which cannot send an Authorization header, so
+     * they pass this token as the "token" query parameter instead; it is valid for that path only.
+     * @return Token and its lifetime
+     */
+    @PostMapping("/events/token")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamTokenDTO> issueOrderEventsToken() {
+        UserDetailsImpl userDetails = getCurrentUserDetails();
+        String token = jwtUtils.generateScopedToken(userDetails.getUsername(), JwtUtils.ORDER_EVENTS_SCOPE);
+        return ResponseEntity.ok(new StreamTokenDTO(token, jwtUtils.getScopedTokenExpirationMs()));
+    }
+
+    /**
+     * Stream status and tracking number changes of the current user's orders as Server-Sent Events.
+     * Authenticated by an Authorization header or by a token from /events/token
+     * @return Event stream; each "order-status" event carries an OrderEventDTO
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> streamOrderEvents() {
+        UserDetailsImpl userDetails = getCurrentUserDetails();
+        try {
+            return ResponseEntity.ok(orderEventHub.subscribe(userDetails.getId()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(e.getMessage());
+        }
+    }
+
     /**
      * Get order by ID
      * @param id Order ID
@@ -110,7 +230,7 @@ public class OrderController {
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             // Find order
-            Optional<Order> orderOpt = orderRepository.findById(id);
+            Optional<Order> orderOpt = orderDao.findByIdWithDetails(id);
             if (orderOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
@@ -124,7 +244,7 @@ public class OrderController {
             }
 
             // Convert to DTO for response
-            OrderDTO responseDTO = convertToOrderDTO(order);
+            OrderDTO responseDTO = orderMapper.toDTO(order);
             return ResponseEntity.ok(responseDTO);
         } catch (Exception e) {
             return ResponseEntity
@@ -141,37 +261,4 @@ public class OrderController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (UserDetailsImpl) authentication.getPrincipal();
     }
-
-    /**
-     * Convert Order entity to OrderDTO
-     * @param order Order entity
-     * @return OrderDTO
-     */
-    private OrderDTO convertToOrderDTO(Order order) {
-        OrderDTO orderDTO = new OrderDTO();
-        orderDTO.setId(order.getId());
-        orderDTO.setUserId(order.getUser().getId());
-        orderDTO.setUsername(order.getUser().getUsername());
-        orderDTO.setOrderDate(order.getOrderDate());
-        orderDTO.setStatus(order.getStatus());
-        orderDTO.setTotalAmount(order.getTotalAmount());
-        orderDTO.setShippingAddress(order.getShippingAddress());
-        orderDTO.setTrackingNumber(order.getTrackingNumber());
-
-        // Convert order items
-        orderDTO.setOrderItems(order.getOrderItems().stream()
-                .map(item -> {
-                    OrderItemDTO itemDTO = new OrderItemDTO();
-                    itemDTO.setId(item.getId());
-                    itemDTO.setBookId(item.getBook().getId());
-                    itemDTO.setBookTitle(item.getBook().getTitle());
-                    itemDTO.setQuantity(item.getQuantity());
-                    itemDTO.setPrice(item.getPrice());
-                    itemDTO.setSubtotal(item.getSubtotal());
-                    return itemDTO;
-                })
-                .collect(java.util.stream.Collectors.toSet()));
-
-        return orderDTO;
-    }
 }
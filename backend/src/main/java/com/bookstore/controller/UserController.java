@@ -1,31 +1,37 @@
 package com.bookstore.controller;
 
-import com.bookstore.dto.OrderDTO;
+import com.bookstore.dao.KeysetCursor;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.OrderSummaryDTO;
 import com.bookstore.dto.UserDTO;
-import com.bookstore.model.Order;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.OrderStatus;
 import com.bookstore.model.User;
-import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.UserRepository;
+import com.bookstore.service.OrderService;
 import com.bookstore.service.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
 
+    private static final int MAX_ORDER_PAGE_SIZE = 100;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderService orderService;
 
     /**
      * Get current user details
@@ -51,23 +57,40 @@ public class UserController {
     }
 
     /**
-     * Get orders for the current user
-     * @return List of OrderDTO objects
+     * Get orders for the current user, newest first, keyset paged
+     * @param cursor nextCursor of the previous page; omit for the first page. Pass the same filters
+     *               with every page
+     * @param size Page size
+     * @param status Only orders in these statuses
+     * @param from Only orders placed at or after this time (ISO date-time)
+     * @param to Only orders placed before this time (ISO date-time)
+     * @param includeItems Whether to include the items of each order
+     * @return CursorPage of OrderSummaryDTO objects
      */
     @GetMapping("/orders")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<OrderDTO>> getUserOrders() {
-        UserDetailsImpl userDetails = getCurrentUserDetails();
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Order> orders = orderRepository.findByUserOrderByOrderDateDesc(user);
-
-        List<OrderDTO> orderDTOs = orders.stream()
-                .map(this::convertToOrderDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(orderDTOs);
+    public ResponseEntity<?> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) List<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean includeItems) {
+        if (size < 1 || size > MAX_ORDER_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Page size must be between 1 and " + MAX_ORDER_PAGE_SIZE);
+        }
+        try {
+            UserDetailsImpl userDetails = getCurrentUserDetails();
+            KeysetCursor position = cursor == null || cursor.isEmpty()
+                    ? KeysetCursor.first("orderDate", true)
+                    : KeysetCursor.decode(cursor);
+
+            CursorPage<OrderSummaryDTO> orders = orderService.getOrderHistory(
+                    userDetails.getId(), status, from, to, position, size, includeItems);
+            return ResponseEntity.ok(orders);
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
@@ -78,37 +101,4 @@ public class UserController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (UserDetailsImpl) authentication.getPrincipal();
     }
-
-    /**
-     * Helper method to convert Order entity to OrderDTO
-     * @param order Order entity
-     * @return OrderDTO
-     */
-    private OrderDTO convertToOrderDTO(Order order) {
-        OrderDTO orderDTO = new OrderDTO();
-        orderDTO.setId(order.getId());
-        orderDTO.setUserId(order.getUser().getId());
-        orderDTO.setUsername(order.getUser().getUsername());
-        orderDTO.setOrderDate(order.getOrderDate());
-        orderDTO.setStatus(order.getStatus());
-        orderDTO.setTotalAmount(order.getTotalAmount());
-        orderDTO.setShippingAddress(order.getShippingAddress());
-        orderDTO.setTrackingNumber(order.getTrackingNumber());
-
-        // Convert order items
-        orderDTO.setOrderItems(order.getOrderItems().stream()
-                .map(item -> {
-                    var itemDTO = new com.bookstore.dto.OrderItemDTO();
-                    itemDTO.setId(item.getId());
-                    itemDTO.setBookId(item.getBook().getId());
-                    itemDTO.setBookTitle(item.getBook().getTitle());
-                    itemDTO.setQuantity(item.getQuantity());
-                    itemDTO.setPrice(item.getPrice());
-                    itemDTO.setSubtotal(item.getSubtotal());
-                    return itemDTO;
-                })
-                .collect(Collectors.toSet()));
-
-        return orderDTO;
-    }
 }
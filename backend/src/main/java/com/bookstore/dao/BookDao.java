@@ -1,12 +1,16 @@
 package com.bookstore.dao;
 
+import com.bookstore.dto.BookDTO;
 import com.bookstore.model.Book;
 import com.bookstore.model.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
 
 public interface BookDao {
     List<Book> findAll();
@@ -15,6 +19,12 @@ public interface BookDao {
     
     Optional<Book> findById(Long id);
     
+    List<Book> findAllById(Collection<Long> ids);
+    
+    List<Long> decrementStock(SortedMap<Long, Integer> quantities);
+    
+    Map<Long, Integer> lockStock(Collection<Long> ids);
+    
     Book save(Book book);
     
     void deleteById(Long id);
@@ -25,7 +35,17 @@ public interface BookDao {
     
     Page<Book> findByCategory(Category category, Pageable pageable);
     
-    Page<Book> searchBooks(String searchTerm, Pageable pageable);
+    Page<BookDTO> findAllListings(Pageable pageable);
+    
+    Page<BookDTO> findListingsByCategory(Long categoryId, Pageable pageable);
+    
+    List<BookDTO> findListingsByIds(Collection<Long> ids);
+    
+    List<Book> findAllByIsbn(Collection<String> isbns);
+    
+    KeysetSlice<BookDTO> findAllListings(KeysetCursor cursor, int limit);
+    
+    KeysetSlice<BookDTO> findListingsByCategory(Long categoryId, KeysetCursor cursor, int limit);
     
     List<Book> findRecentBooks();
     
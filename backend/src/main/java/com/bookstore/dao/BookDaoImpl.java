@@ -1,25 +1,52 @@
 package com.bookstore.dao;
 
+import com.bookstore.dto.BookDTO;
 import com.bookstore.model.Book;
 import com.bookstore.model.Category;
 import com.bookstore.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
 
 @Repository
 public class BookDaoImpl implements BookDao {
 
+    // Columns that keyset listings may sort by; each is backed by a (column, id) index on books
+    private static final KeysetQuery<BookDTO> LISTING_KEYSET = new KeysetQuery<>(BookDTO.class,
+            "new com.bookstore.dto.BookDTO(e.id, e.title, e.author, e.isbn, e.price, " +
+            "c.id, c.name, e.stockQuantity, e.imageUrl)",
+            "Book e LEFT JOIN e.category c", BookDTO::getId)
+            .sortableBy("id", Long::valueOf, BookDTO::getId)
+            .sortableBy("title", key -> key, BookDTO::getTitle)
+            .sortableBy("author", key -> key, BookDTO::getAuthor)
+            .sortableBy("price", BigDecimal::new, BookDTO::getPrice);
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE books SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
 
     // Constructor for Autowired injection
     @Autowired
-    public BookDaoImpl(BookRepository bookRepository) {
+    public BookDaoImpl(BookRepository bookRepository, EntityManager entityManager, JdbcTemplate jdbcTemplate) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -37,6 +64,57 @@ public class BookDaoImpl implements BookDao {
         return bookRepository.findById(id);
     }
 
+    @Override
+    public List<Book> findAllById(Collection<Long> ids) {
+        return bookRepository.findAllById(ids);
+    }
+
+    /**
+     * Take stock for several books in one JDBC batch of conditional decrements.
+     * Statements run in ascending book id order, so concurrent callers lock rows in the same order.
+     * Must run inside a transaction; the caller rolls it back if any decrement did not apply.
+     * @param quantities Quantity to take per book id
+     * @return Ids of the books that do not exist or do not have enough stock
+     */
+    @Override
+    public List<Long> decrementStock(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue());
+        });
+
+        List<Long> failed = new ArrayList<>();
+        int[] updated = counts.length == 0 ? new int[0] : counts[0];
+        for (int i = 0; i < lines.size(); i++) {
+            if (i >= updated.length || updated[i] == 0) {
+                failed.add(lines.get(i).getKey());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Lock the rows of several books and read their stock, in ascending id order.
+     * Must run inside a transaction, which holds the locks until it ends.
+     * @param ids Book ids
+     * @return Stock per existing book id
+     */
+    @Override
+    public Map<Long, Integer> lockStock(Collection<Long> ids) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stock;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query("SELECT id, stock_quantity FROM books WHERE id IN (" + placeholders + ") " +
+                "ORDER BY id FOR UPDATE", rs -> {
+            stock.put(rs.getLong(1), rs.getInt(2));
+        }, ids.toArray());
+        return stock;
+    }
+
     @Override
     public Book save(Book book) {
         return bookRepository.save(book);
@@ -63,8 +141,34 @@ public class BookDaoImpl implements BookDao {
     }
 
     @Override
-    public Page<Book> searchBooks(String searchTerm, Pageable pageable) {
-        return bookRepository.searchBooks(searchTerm, pageable);
+    public Page<BookDTO> findAllListings(Pageable pageable) {
+        return bookRepository.findAllListings(pageable);
+    }
+
+    @Override
+    public Page<BookDTO> findListingsByCategory(Long categoryId, Pageable pageable) {
+        return bookRepository.findListingsByCategoryId(categoryId, pageable);
+    }
+
+    @Override
+    public List<BookDTO> findListingsByIds(Collection<Long> ids) {
+        return bookRepository.findListingsByIdIn(ids);
+    }
+
+    @Override
+    public List<Book> findAllByIsbn(Collection<String> isbns) {
+        return bookRepository.findByIsbnIn(isbns);
+    }
+
+    @Override
+    public KeysetSlice<BookDTO> findAllListings(KeysetCursor cursor, int limit) {
+        return LISTING_KEYSET.fetch(entityManager, null, null, cursor, limit);
+    }
+
+    @Override
+    public KeysetSlice<BookDTO> findListingsByCategory(Long categoryId, KeysetCursor cursor, int limit) {
+        return LISTING_KEYSET.fetch(entityManager, "c.id = :categoryId", Map.of("categoryId", categoryId),
+                cursor, limit);
     }
 
     @Override
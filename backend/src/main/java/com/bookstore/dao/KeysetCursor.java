@@ -0,0 +1,89 @@
+package com.bookstore.dao;
+
+import com.bookstore.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset (seek) paginated listing: the sort column, its direction and the
+ * sort key and id of the last row already returned.
+ * Clients only ever see it as an opaque URL-safe token.
+ */
+public final class KeysetCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final boolean descending;
+    private final Long lastId;
+    private final String lastKey;
+
+    private KeysetCursor(String sortBy, boolean descending, Long lastId, String lastKey) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.lastId = lastId;
+        this.lastKey = lastKey;
+    }
+
+    /**
+     * Cursor for the first page of a listing
+     * @param sortBy Sort field
+     * @param descending Whether to sort in descending order
+     * @return Cursor positioned before the first row
+     */
+    public static KeysetCursor first(String sortBy, boolean descending) {
+        return new KeysetCursor(sortBy, descending, null, null);
+    }
+
+    /**
+     * Parse a token previously returned as nextCursor
+     * @param token Opaque cursor token
+     * @return Decoded cursor
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The key goes last so that it may itself contain the separator
+            String[] parts = decoded.split("\\" + SEPARATOR, 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[1], "desc".equals(parts[2]), Long.valueOf(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sortBy, descending ? "desc" : "asc",
+                String.valueOf(lastId), lastKey);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor positioned after the given row
+    KeysetCursor after(String key, Long id) {
+        return new KeysetCursor(sortBy, descending, id, key);
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    Long getLastId() {
+        return lastId;
+    }
+
+    String getLastKey() {
+        return lastKey;
+    }
+}
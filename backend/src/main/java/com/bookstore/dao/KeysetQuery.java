@@ -0,0 +1,179 @@
+package com.bookstore.dao;
+
+import com.bookstore.exception.BadRequestException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Builds keyset (seek) queries for the DAO implementations.
+ * Instead of LIMIT offset,size plus a COUNT(*), a page continues strictly after the last
+ * (sort key, id) pair, which an index on (sort column, id) serves as a range scan.
+ * One extra row is fetched to learn whether another page exists.
+ */
+final class KeysetQuery<T> {
+
+    private final Class<T> resultType;
+    private final String select;
+    private final String from;
+    private final Function<T, Long> idOf;
+    private final Map<String, SortField<T>> sortFields = new HashMap<>();
+
+    /**
+     * @param resultType Type of the selected rows
+     * @param select JPQL select expression, either the entity alias "e" or a constructor projection
+     * @param from JPQL from clause declaring the root entity as "e", plus any joins
+     * @param idOf Reads the id from a row
+     */
+    KeysetQuery(Class<T> resultType, String select, String from, Function<T, Long> idOf) {
+        this.resultType = resultType;
+        this.select = select;
+        this.from = from;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Whitelist a sortable attribute
+     * @param name Entity attribute name
+     * @param parser Turns the string form of a key back into the attribute type
+     * @param extractor Reads the attribute from a row
+     * @return this
+     */
+    KeysetQuery<T> sortableBy(String name, Function<String, Object> parser, Function<T, Object> extractor) {
+        sortFields.put(name, new SortField<>(parser, extractor));
+        return this;
+    }
+
+    /**
+     * Fetch the page after the cursor
+     * @param entityManager Entity manager
+     * @param filter Extra JPQL condition over the from clause aliases, or null
+     * @param params Parameters used by the filter
+     * @param cursor Current position
+     * @param limit Page size
+     * @return The page and the cursor for the next one
+     */
+    KeysetSlice<T> fetch(EntityManager entityManager, String filter, Map<String, Object> params,
+                         KeysetCursor cursor, int limit) {
+        String sortBy = cursor.getSortBy();
+        SortField<T> field = sortFields.get(sortBy);
+        if (field == null) {
+            throw new BadRequestException("Unsupported sort field: " + sortBy);
+        }
+        boolean byIdOnly = "id".equals(sortBy);
+        int pageSize = Math.max(limit, 1);
+        String comparison = cursor.isDescending() ? "<" : ">";
+        String direction = cursor.isDescending() ? "DESC" : "ASC";
+
+        List<String> conditions = new ArrayList<>();
+        if (filter != null) {
+            conditions.add("(" + filter + ")");
+        }
+        if (!cursor.isFirstPage()) {
+            if (byIdOnly) {
+                conditions.add("e.id " + comparison + " :lastId");
+            } else {
+                conditions.add("(e." + sortBy + " " + comparison + " :lastKey OR (e." + sortBy
+                        + " = :lastKey AND e.id " + comparison + " :lastId))");
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(from);
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY ");
+        if (!byIdOnly) {
+            jpql.append("e.").append(sortBy).append(' ').append(direction).append(", ");
+        }
+        jpql.append("e.id ").append(direction);
+
+        TypedQuery<T> query = entityManager.createQuery(jpql.toString(), resultType);
+        if (params != null) {
+            params.forEach(query::setParameter);
+        }
+        if (!cursor.isFirstPage()) {
+            query.setParameter("lastId", cursor.getLastId());
+            if (!byIdOnly) {
+                try {
+                    query.setParameter("lastKey", field.parser.apply(cursor.getLastKey()));
+                } catch (RuntimeException e) {
+                    throw new BadRequestException("Invalid cursor");
+                }
+            }
+        }
+        query.setMaxResults(pageSize + 1);
+
+        List<T> rows = query.getResultList();
+        if (rows.size() <= pageSize) {
+            return new KeysetSlice<>(rows, null);
+        }
+        List<T> page = new ArrayList<>(rows.subList(0, pageSize));
+        T last = page.get(pageSize - 1);
+        Object lastKey = field.extractor.apply(last);
+        return new KeysetSlice<>(page, cursor.after(lastKey == null ? "" : lastKey.toString(), idOf.apply(last)));
+    }
+
+    /**
+     * Merge the pages of two disjoint row sets fetched with the same cursor into one page.
+     * Each page already holds its set's first rows after the cursor, so the first limit rows of
+     * both together are the first rows of the union.
+     * @param cursor Cursor both pages were fetched with
+     * @param limit Page size
+     * @param first Page of one row set
+     * @param second Page of the other row set
+     * @return The merged page and the cursor for the next one
+     */
+    KeysetSlice<T> merge(KeysetCursor cursor, int limit, KeysetSlice<T> first, KeysetSlice<T> second) {
+        SortField<T> field = sortFields.get(cursor.getSortBy());
+        if (field == null) {
+            throw new BadRequestException("Unsupported sort field: " + cursor.getSortBy());
+        }
+        Comparator<T> order = (a, b) -> {
+            int byKey = compareKeys(field.extractor.apply(a), field.extractor.apply(b));
+            return byKey != 0 ? byKey : idOf.apply(a).compareTo(idOf.apply(b));
+        };
+        if (cursor.isDescending()) {
+            order = order.reversed();
+        }
+
+        List<T> rows = new ArrayList<>(first.getContent().size() + second.getContent().size());
+        rows.addAll(first.getContent());
+        rows.addAll(second.getContent());
+        rows.sort(order);
+
+        int pageSize = Math.max(limit, 1);
+        if (!first.hasNext() && !second.hasNext() && rows.size() <= pageSize) {
+            return new KeysetSlice<>(rows, null);
+        }
+        List<T> page = new ArrayList<>(rows.subList(0, Math.min(pageSize, rows.size())));
+        T last = page.get(page.size() - 1);
+        Object lastKey = field.extractor.apply(last);
+        return new KeysetSlice<>(page, cursor.after(lastKey == null ? "" : lastKey.toString(), idOf.apply(last)));
+    }
+
+    // Nulls first, as MySQL sorts them ascending
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static final class SortField<T> {
+        private final Function<String, Object> parser;
+        private final Function<T, Object> extractor;
+
+        private SortField(Function<String, Object> parser, Function<T, Object> extractor) {
+            this.parser = parser;
+            this.extractor = extractor;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bookstore.dao;
+
+import com.bookstore.dto.CursorPage;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rows of one keyset page plus the cursor for the next one (null on the last page)
+ */
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final KeysetCursor next;
+
+    public KeysetSlice(List<T> content, KeysetCursor next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public KeysetCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Convert to the API representation, mapping every row
+     * @param mapper Row mapper, e.g. entity to DTO
+     * @return CursorPage carrying the encoded next cursor
+     */
+    public <R> CursorPage<R> toCursorPage(Function<T, R> mapper) {
+        List<R> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(mapped, mapped.size(), hasNext() ? next.encode() : null, hasNext());
+    }
+}
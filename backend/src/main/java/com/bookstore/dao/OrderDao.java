@@ -1,11 +1,18 @@
 package com.bookstore.dao;
 
+import com.bookstore.dto.OrderSearchCriteria;
+import com.bookstore.dto.OrderSummaryDTO;
 import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.OrderStatus;
 import com.bookstore.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderDao {
@@ -13,11 +20,53 @@ public interface OrderDao {
     
     Optional<Order> findById(Long id);
     
+    Optional<Order> findByIdWithDetails(Long id);
+    
+    Optional<Order> findUnarchivedById(Long id);
+    
+    int archive(LocalDateTime placedBefore, int limit);
+    
+    List<Order> findAllWithDetails(List<Long> ids);
+    
+    Page<Order> findAllWithDetails(Pageable pageable);
+    
     Order save(Order order);
     
+    void insertOrders(List<Order> orders);
+    
+    void insertItems(List<OrderItem> items);
+
+    int fillItemCategories();
+    
     void deleteById(Long id);
     
     List<Order> findByUserOrderByOrderDateDesc(User user);
     
     Page<Order> findByUser(User user, Pageable pageable);
+    
+    KeysetSlice<Order> findAll(KeysetCursor cursor, int limit);
+    
+    KeysetSlice<Order> findAllWithDetails(KeysetCursor cursor, int limit);
+    
+    KeysetSlice<OrderSummaryDTO> findSummariesByUser(Long userId, Collection<OrderStatus> statuses,
+                                                     LocalDateTime from, LocalDateTime to,
+                                                     KeysetCursor cursor, int limit);
+    
+    List<OrderItem> findItemsByOrderIds(Collection<Long> orderIds);
+
+    List<OrderItem> findArchivedItemsByOrderIds(Collection<Long> orderIds);
+    
+    KeysetSlice<Order> search(OrderSearchCriteria criteria, KeysetCursor cursor, int limit);
+    
+    long countMatches(OrderSearchCriteria criteria, long limit);
+    
+    List<Long> findIdsMatching(OrderSearchCriteria criteria, int limit);
+    
+    Map<Long, OrderStatus> lockStatuses(Collection<Long> ids);
+    
+    List<Order> findOwnersAndTracking(Collection<Long> ids);
+    
+    int updateStatus(Collection<Long> ids, OrderStatus status, Collection<OrderStatus> from);
+    
+    int updateStatusAndTracking(Map<Long, String> trackingNumbers, OrderStatus status, Collection<OrderStatus> from);
 }
@@ -1,27 +1,103 @@
 package com.bookstore.dao;
 
+import com.bookstore.dto.OrderSearchCriteria;
+import com.bookstore.dto.OrderSummaryDTO;
+import com.bookstore.model.ArchivedOrder;
+import com.bookstore.model.ArchivedOrderItem;
+import com.bookstore.model.Book;
 import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.OrderStatus;
 import com.bookstore.model.User;
 import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public class OrderDaoImpl implements OrderDao {
 
+    // Columns that keyset listings may sort by; each is backed by a (column, id) index on orders
+    private static final KeysetQuery<Order> KEYSET = new KeysetQuery<>(Order.class, "e", "Order e", Order::getId)
+            .sortableBy("id", Long::valueOf, Order::getId)
+            .sortableBy("orderDate", LocalDateTime::parse, Order::getOrderDate)
+            .sortableBy("totalAmount", BigDecimal::new, Order::getTotalAmount);
+
+    // Order history rows without items; only orderDate is offered, the index is (user_id, orderDate, id)
+    private static final KeysetQuery<OrderSummaryDTO> SUMMARY_KEYSET = new KeysetQuery<>(OrderSummaryDTO.class,
+            "new com.bookstore.dto.OrderSummaryDTO(e.id, e.orderDate, e.status, e.totalAmount, " +
+            "e.shippingAddress, e.trackingNumber)",
+            "Order e", OrderSummaryDTO::getId)
+            .sortableBy("orderDate", LocalDateTime::parse, OrderSummaryDTO::getOrderDate);
+
+    // The same rows from orders_archive, served by its (userId, orderDate) index
+    private static final KeysetQuery<OrderSummaryDTO> ARCHIVED_SUMMARY_KEYSET = new KeysetQuery<>(OrderSummaryDTO.class,
+            "new com.bookstore.dto.OrderSummaryDTO(e.id, e.orderDate, e.status, e.totalAmount, " +
+            "e.shippingAddress, e.trackingNumber)",
+            "ArchivedOrder e", OrderSummaryDTO::getId)
+            .sortableBy("orderDate", LocalDateTime::parse, OrderSummaryDTO::getOrderDate);
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (user_id, order_date, status, total_amount, shipping_address, stock_settled, " +
+            "coupon_code) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ARCHIVE_ITEMS =
+            "INSERT INTO order_items_archive (id, order_id, book_id, book_title, quantity, price, discount, " +
+            "category_id) SELECT oi.id, oi.order_id, oi.book_id, b.title, oi.quantity, oi.price, oi.discount, " +
+            "oi.category_id " +
+            "FROM order_items oi LEFT JOIN books b ON b.id = oi.book_id WHERE oi.order_id";
+
+    private static final String ARCHIVE_ORDERS =
+            "INSERT INTO orders_archive (id, user_id, username, order_date, status, total_amount, " +
+            "shipping_address, tracking_number, coupon_code, archived_at) " +
+            "SELECT o.id, o.user_id, u.username, o.order_date, o.status, o.total_amount, " +
+            "o.shipping_address, o.tracking_number, o.coupon_code, ? FROM orders o JOIN users u ON u.id = o.user_id WHERE o.id";
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO order_items (order_id, book_id, quantity, price, discount, category_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Items written before category_id existed take their book's category at the time of the fill, or 0
+    private static final String FILL_ITEM_CATEGORIES =
+            "UPDATE %s oi LEFT JOIN books b ON b.id = oi.book_id SET oi.category_id = COALESCE(b.category_id, 0) " +
+            "WHERE oi.category_id IS NULL";
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
-    public OrderDaoImpl(OrderRepository orderRepository, UserRepository userRepository) {
+    public OrderDaoImpl(OrderRepository orderRepository, UserRepository userRepository, EntityManager entityManager,
+                        JdbcTemplate jdbcTemplate) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -29,16 +105,238 @@ public class OrderDaoImpl implements OrderDao {
         return orderRepository.findAll();
     }
 
+    /**
+     * Find an order by id, falling back to the archive.
+     * Archived orders come back as detached, read-only copies; they must not be saved.
+     * @param id Order ID
+     * @return The order, if in either table
+     */
     @Override
     public Optional<Order> findById(Long id) {
+        Optional<Order> order = orderRepository.findById(id);
+        return order.isPresent() ? order : findArchived(id);
+    }
+
+    // Only orders still in the orders table, e.g. to modify them
+    @Override
+    public Optional<Order> findUnarchivedById(Long id) {
         return orderRepository.findById(id);
     }
 
+    @Override
+    public Optional<Order> findByIdWithDetails(Long id) {
+        Optional<Order> order = orderRepository.findWithDetailsById(id);
+        return order.isPresent() ? order : findArchived(id);
+    }
+
+    /**
+     * Move orders in a terminal status placed before a cutoff to the archive tables.
+     * Must run inside a transaction. The chunk is locked with SELECT ... FOR UPDATE, copied with
+     * INSERT ... SELECT and deleted from the hot tables, so it costs five statements whatever its size.
+     * @param placedBefore Only orders placed before this time
+     * @param limit Most orders to move
+     * @return Number of orders moved
+     */
+    @Override
+    public int archive(LocalDateTime placedBefore, int limit) {
+        List<String> terminal = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status.isTerminal()) {
+                terminal.add(status.name());
+            }
+        }
+        List<Object> args = new ArrayList<>(terminal);
+        args.add(placedBefore);
+        args.add(limit);
+        // Orders whose reserved stock is not yet written back stay until InventoryReservations settles them
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders WHERE status IN (" +
+                placeholders(terminal.size()) + ") AND order_date < ? " +
+                "AND (stock_settled IS NULL OR stock_settled = TRUE) ORDER BY id LIMIT ? FOR UPDATE",
+                Long.class, args.toArray());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String in = " IN (" + placeholders(ids.size()) + ")";
+        Object[] idArgs = ids.toArray();
+        List<Object> orderArgs = new ArrayList<>(ids.size() + 1);
+        orderArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        orderArgs.addAll(ids);
+        jdbcTemplate.update(ARCHIVE_ITEMS + in, idArgs);
+        jdbcTemplate.update(ARCHIVE_ORDERS + in, orderArgs.toArray());
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id" + in, idArgs);
+        jdbcTemplate.update("DELETE FROM orders WHERE id" + in, idArgs);
+        return ids.size();
+    }
+
+    // Helper method to rebuild an archived order as a detached Order, for the same DTO mapping
+    private Optional<Order> findArchived(Long id) {
+        ArchivedOrder archived = entityManager.find(ArchivedOrder.class, id);
+        if (archived == null) {
+            return Optional.empty();
+        }
+        User user = new User();
+        user.setId(archived.getUserId());
+        user.setUsername(archived.getUsername());
+
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setUser(user);
+        order.setOrderDate(archived.getOrderDate());
+        order.setStatus(archived.getStatus());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setShippingAddress(archived.getShippingAddress());
+        order.setTrackingNumber(archived.getTrackingNumber());
+        order.setCouponCode(archived.getCouponCode());
+        order.setStockSettled(true);
+
+        List<ArchivedOrderItem> items = entityManager.createQuery(
+                        "SELECT i FROM ArchivedOrderItem i WHERE i.orderId = :orderId ORDER BY i.id",
+                        ArchivedOrderItem.class)
+                .setParameter("orderId", id)
+                .getResultList();
+        for (ArchivedOrderItem archivedItem : items) {
+            order.addOrderItem(toOrderItem(archivedItem));
+        }
+        return Optional.of(order);
+    }
+
+    // Helper method to rebuild an archived item as a detached OrderItem; the book only has id and title
+    private OrderItem toOrderItem(ArchivedOrderItem archivedItem) {
+        Book book = new Book();
+        book.setId(archivedItem.getBookId());
+        book.setTitle(archivedItem.getBookTitle());
+
+        OrderItem item = new OrderItem();
+        item.setId(archivedItem.getId());
+        item.setBook(book);
+        item.setQuantity(archivedItem.getQuantity());
+        item.setPrice(archivedItem.getPrice());
+        item.setDiscount(archivedItem.getDiscount());
+        item.setCategoryId(archivedItem.getCategoryId());
+        return item;
+    }
+
+    /**
+     * Load orders with user, items and books fetched, in the order of the given ids
+     * @param ids Order ids
+     * @return Orders that exist, in id list order
+     */
+    @Override
+    public List<Order> findAllWithDetails(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Order> ordersById = orderRepository.findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Page over orders with details fetched, in two phases: the page of ids is selected first
+     * (so LIMIT applies to orders, not to joined item rows), then those orders are fetched
+     * @param pageable Page and sort of the orders
+     * @return Page of orders
+     */
+    @Override
+    public Page<Order> findAllWithDetails(Pageable pageable) {
+        Page<Long> ids = orderRepository.findAllIds(pageable);
+        return new PageImpl<>(findAllWithDetails(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
     @Override
     public Order save(Order order) {
         return orderRepository.save(order);
     }
 
+    /**
+     * Insert several new orders in one JDBC batch and set their generated ids.
+     * Used for group commits, where one IDENTITY insert per order would dominate the transaction.
+     * Sets the order date and PENDING status that Order.prePersist would otherwise set.
+     * @param orders New orders with a user
+     */
+    @Override
+    public void insertOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+                for (Order order : orders) {
+                    order.setOrderDate(now);
+                    if (order.getStatus() == null) {
+                        order.setStatus(OrderStatus.PENDING);
+                    }
+                    ps.setLong(1, order.getUser().getId());
+                    ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+                    ps.setString(3, order.getStatus().name());
+                    ps.setBigDecimal(4, order.getTotalAmount());
+                    ps.setString(5, order.getShippingAddress());
+                    ps.setObject(6, order.getStockSettled());
+                    ps.setString(7, order.getCouponCode());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < orders.size() && keys.next(); i++) {
+                        orders.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Insert the items of an already saved order in one JDBC batch.
+     * OrderItem ids are IDENTITY generated, which keeps Hibernate from batching their inserts;
+     * the generated keys are read back from the batch and set on the items.
+     * The items must not be in Order.orderItems, or the cascade would insert them again.
+     * @param items Items whose order has an id
+     */
+    @Override
+    public void insertItems(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ITEM, Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderItem item : items) {
+                    ps.setLong(1, item.getOrder().getId());
+                    ps.setLong(2, item.getBook().getId());
+                    ps.setInt(3, item.getQuantity());
+                    ps.setBigDecimal(4, item.getPrice());
+                    ps.setBigDecimal(5, item.getDiscount());
+                    ps.setObject(6, item.getCategoryId(), Types.BIGINT);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < items.size() && keys.next(); i++) {
+                        items.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Set the stored category of order items written before the column existed, in the hot and
+     * archive tables. Items of books that were deleted or have no category get 0, so every item
+     * is filled at most once.
+     * @return Number of items updated
+     */
+    @Override
+    public int fillItemCategories() {
+        return jdbcTemplate.update(String.format(FILL_ITEM_CATEGORIES, "order_items"))
+                + jdbcTemplate.update(String.format(FILL_ITEM_CATEGORIES, "order_items_archive"));
+    }
+
     @Override
     public void deleteById(Long id) {
         orderRepository.deleteById(id);
@@ -53,4 +351,292 @@ public class OrderDaoImpl implements OrderDao {
     public Page<Order> findByUser(User user, Pageable pageable) {
         return orderRepository.findByUser(user, pageable);
     }
+
+    @Override
+    public KeysetSlice<Order> findAll(KeysetCursor cursor, int limit) {
+        return KEYSET.fetch(entityManager, null, null, cursor, limit);
+    }
+
+    /**
+     * Page through one user's orders as summaries, archived ones included.
+     * The same keyset page is read from orders and from orders_archive and the two are merged,
+     * so the history continues into archived orders wherever they fall in the sort order.
+     * @param userId Ordering user
+     * @param statuses Only orders in these statuses, or all when null or empty
+     * @param from Only orders placed at or after this time, or null
+     * @param to Only orders placed before this time, or null
+     * @param cursor Current position
+     * @param limit Page size
+     * @return Summaries without items
+     */
+    @Override
+    public KeysetSlice<OrderSummaryDTO> findSummariesByUser(Long userId, Collection<OrderStatus> statuses,
+                                                            LocalDateTime from, LocalDateTime to,
+                                                            KeysetCursor cursor, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        if (statuses != null && !statuses.isEmpty()) {
+            conditions.add("e.status IN :statuses");
+            params.put("statuses", statuses);
+        }
+        if (from != null) {
+            conditions.add("e.orderDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            conditions.add("e.orderDate < :to");
+            params.put("to", to);
+        }
+        String filter = conditions.isEmpty() ? "" : " AND " + String.join(" AND ", conditions);
+        KeysetSlice<OrderSummaryDTO> hot = SUMMARY_KEYSET.fetch(entityManager,
+                "e.user.id = :userId" + filter, params, cursor, limit);
+        KeysetSlice<OrderSummaryDTO> archived = ARCHIVED_SUMMARY_KEYSET.fetch(entityManager,
+                "e.userId = :userId" + filter, params, cursor, limit);
+        return SUMMARY_KEYSET.merge(cursor, limit, hot, archived);
+    }
+
+    @Override
+    public List<OrderItem> findItemsByOrderIds(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createQuery(
+                        "SELECT i FROM OrderItem i JOIN FETCH i.book WHERE i.order.id IN :orderIds ORDER BY i.id",
+                        OrderItem.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * Load the items of archived orders as detached OrderItems
+     * @param orderIds Archived order ids
+     * @return Items whose order carries only its id
+     */
+    @Override
+    public List<OrderItem> findArchivedItemsByOrderIds(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ArchivedOrderItem> archivedItems = entityManager.createQuery(
+                        "SELECT i FROM ArchivedOrderItem i WHERE i.orderId IN :orderIds ORDER BY i.id",
+                        ArchivedOrderItem.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        List<OrderItem> items = new ArrayList<>(archivedItems.size());
+        for (ArchivedOrderItem archivedItem : archivedItems) {
+            Order order = new Order();
+            order.setId(archivedItem.getOrderId());
+            OrderItem item = toOrderItem(archivedItem);
+            item.setOrder(order);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Override
+    public KeysetSlice<Order> search(OrderSearchCriteria criteria, KeysetCursor cursor, int limit) {
+        SearchFilter filter = searchFilter(criteria);
+        if (filter == null) {
+            return new KeysetSlice<>(Collections.emptyList(), null);
+        }
+        return KEYSET.fetch(entityManager, filter.jpql(), filter.params, cursor, limit);
+    }
+
+    /**
+     * Count search matches, stopping at a limit.
+     * The count runs over a LIMIT-ed subquery, so it reads at most limit + 1 index entries
+     * however many orders match.
+     * @param criteria Search filters
+     * @param limit Highest count worth knowing exactly
+     * @return Number of matches, or limit + 1 when there are more than limit
+     */
+    @Override
+    public long countMatches(OrderSearchCriteria criteria, long limit) {
+        SearchFilter filter = searchFilter(criteria);
+        if (filter == null) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(filter.args);
+        args.add(limit + 1);
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM orders" + filter.sqlWhere() + " LIMIT ?) capped",
+                Long.class, args.toArray());
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public List<Long> findIdsMatching(OrderSearchCriteria criteria, int limit) {
+        SearchFilter filter = searchFilter(criteria);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
+        List<Object> args = new ArrayList<>(filter.args);
+        args.add(limit);
+        return jdbcTemplate.queryForList("SELECT id FROM orders" + filter.sqlWhere() + " ORDER BY id LIMIT ?",
+                Long.class, args.toArray());
+    }
+
+    /**
+     * Lock the rows of several orders and read their status, in ascending id order.
+     * Must run inside a transaction, which holds the locks until it ends.
+     * @param ids Order ids
+     * @return Status per existing order id
+     */
+    @Override
+    public Map<Long, OrderStatus> lockStatuses(Collection<Long> ids) {
+        Map<Long, OrderStatus> statuses = new HashMap<>();
+        if (ids.isEmpty()) {
+            return statuses;
+        }
+        jdbcTemplate.query("SELECT id, status FROM orders WHERE id IN (" + placeholders(ids.size()) + ") " +
+                "ORDER BY id FOR UPDATE", rs -> {
+            statuses.put(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)));
+        }, ids.toArray());
+        return statuses;
+    }
+
+    /**
+     * Get the owner and current tracking number of orders, e.g. to notify customers after a bulk update
+     * @param ids Order ids
+     * @return Detached orders with only id, user id and tracking number set
+     */
+    @Override
+    public List<Order> findOwnersAndTracking(Collection<Long> ids) {
+        List<Order> orders = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return orders;
+        }
+        jdbcTemplate.query("SELECT id, user_id, tracking_number FROM orders WHERE id IN (" +
+                placeholders(ids.size()) + ")", rs -> {
+                    User user = new User();
+                    user.setId(rs.getLong(2));
+                    Order order = new Order();
+                    order.setId(rs.getLong(1));
+                    order.setUser(user);
+                    order.setTrackingNumber(rs.getString(3));
+                    orders.add(order);
+                }, ids.toArray());
+        return orders;
+    }
+
+    /**
+     * Move orders to a status in one statement, skipping those not in an allowed prior status
+     * @param ids Order ids
+     * @param status New status
+     * @param from Allowed prior statuses
+     * @return Number of orders updated
+     */
+    @Override
+    public int updateStatus(Collection<Long> ids, OrderStatus status, Collection<OrderStatus> from) {
+        if (ids.isEmpty() || from.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(1 + ids.size() + from.size());
+        args.add(status.name());
+        args.addAll(ids);
+        from.forEach(prior -> args.add(prior.name()));
+        return jdbcTemplate.update("UPDATE orders SET status = ? WHERE id IN (" + placeholders(ids.size()) + ") " +
+                "AND status IN (" + placeholders(from.size()) + ")", args.toArray());
+    }
+
+    /**
+     * Move orders to a status and set their tracking numbers, as one JDBC batch
+     * @param trackingNumbers Tracking number per order id
+     * @param status New status
+     * @param from Allowed prior statuses
+     * @return Number of orders updated
+     */
+    @Override
+    public int updateStatusAndTracking(Map<Long, String> trackingNumbers, OrderStatus status,
+                                       Collection<OrderStatus> from) {
+        if (trackingNumbers.isEmpty() || from.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE orders SET status = ?, tracking_number = ? WHERE id = ? " +
+                "AND status IN (" + placeholders(from.size()) + ")";
+        List<Map.Entry<Long, String>> rows = new ArrayList<>(trackingNumbers.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, status.name());
+            ps.setString(2, row.getValue());
+            ps.setLong(3, row.getKey());
+            int index = 4;
+            for (OrderStatus prior : from) {
+                ps.setString(index++, prior.name());
+            }
+        });
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += count;
+            }
+        }
+        return updated;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // Helper method to turn search criteria into JPQL and SQL conditions; null if nothing can match
+    private SearchFilter searchFilter(OrderSearchCriteria criteria) {
+        SearchFilter filter = new SearchFilter();
+        if (criteria.getUsername() != null && !criteria.getUsername().isEmpty()) {
+            // Resolved to an id up front so the (user_id, orderDate, id) index applies
+            Optional<User> user = userRepository.findByUsername(criteria.getUsername());
+            if (user.isEmpty()) {
+                return null;
+            }
+            filter.add("e.user.id = :userId", "user_id = ?", "userId", user.get().getId());
+        }
+        if (criteria.getStatuses() != null && !criteria.getStatuses().isEmpty()) {
+            filter.jpqlConditions.add("e.status IN :statuses");
+            filter.params.put("statuses", criteria.getStatuses());
+            filter.sqlConditions.add("status IN (" + placeholders(criteria.getStatuses().size()) + ")");
+            criteria.getStatuses().forEach(status -> filter.args.add(status.name()));
+        }
+        if (criteria.getFrom() != null) {
+            filter.add("e.orderDate >= :from", "order_date >= ?", "from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            filter.add("e.orderDate < :to", "order_date < ?", "to", criteria.getTo());
+        }
+        if (criteria.getMinAmount() != null) {
+            filter.add("e.totalAmount >= :minAmount", "total_amount >= ?", "minAmount", criteria.getMinAmount());
+        }
+        if (criteria.getMaxAmount() != null) {
+            filter.add("e.totalAmount <= :maxAmount", "total_amount <= ?", "maxAmount", criteria.getMaxAmount());
+        }
+        return filter;
+    }
+
+    @Override
+    public KeysetSlice<Order> findAllWithDetails(KeysetCursor cursor, int limit) {
+        KeysetSlice<Order> slice = findAll(cursor, limit);
+        List<Long> ids = slice.getContent().stream().map(Order::getId).collect(Collectors.toList());
+        return new KeysetSlice<>(findAllWithDetails(ids), slice.getNext());
+    }
+
+    // The same search conditions as JPQL for the page query and as SQL for the capped count
+    private static final class SearchFilter {
+        private final List<String> jpqlConditions = new ArrayList<>();
+        private final Map<String, Object> params = new HashMap<>();
+        private final List<String> sqlConditions = new ArrayList<>();
+        private final List<Object> args = new ArrayList<>();
+
+        private void add(String jpql, String sql, String name, Object value) {
+            jpqlConditions.add(jpql);
+            params.put(name, value);
+            sqlConditions.add(sql);
+            args.add(value);
+        }
+
+        private String jpql() {
+            return jpqlConditions.isEmpty() ? null : String.join(" AND ", jpqlConditions);
+        }
+
+        private String sqlWhere() {
+            return sqlConditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", sqlConditions);
+        }
+    }
 } 
\ No newline at end of file
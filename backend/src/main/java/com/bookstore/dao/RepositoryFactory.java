@@ -5,8 +5,11 @@ import com.bookstore.repository.CategoryRepository;
 import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.EntityManager;
+
 /**
  * RepositoryFactory - Factory Pattern implementation
  * Creates and provides access to different repositories
@@ -18,17 +21,23 @@ public class RepositoryFactory {
     private final CategoryRepository categoryRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
     
     @Autowired
     public RepositoryFactory(
             BookRepository bookRepository, 
             CategoryRepository categoryRepository, 
             OrderRepository orderRepository, 
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            EntityManager entityManager,
+            JdbcTemplate jdbcTemplate) {
         this.bookRepository = bookRepository;
         this.categoryRepository = categoryRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
     }
     
     /**
@@ -39,13 +48,15 @@ public class RepositoryFactory {
     public Object createDao(DaoType daoType) {
         switch (daoType) {
             case BOOK:
-                return new BookDaoImpl(bookRepository);
+                return new BookDaoImpl(bookRepository, entityManager, jdbcTemplate);
             case CATEGORY:
                 return new CategoryDaoImpl(categoryRepository);
             case ORDER:
-                return new OrderDaoImpl(orderRepository, userRepository);
+                return new OrderDaoImpl(orderRepository, userRepository, entityManager, jdbcTemplate);
             case USER:
                 return new UserDaoImpl(userRepository);
+            case SALES:
+                return new SalesDaoImpl(jdbcTemplate);
             default:
                 throw new IllegalArgumentException("Unknown DAO type: " + daoType);
         }
@@ -58,6 +69,7 @@ public class RepositoryFactory {
         BOOK,
         CATEGORY,
         ORDER,
-        USER
+        USER,
+        SALES
     }
 } 
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.bookstore.dao;
+
+import com.bookstore.dto.BookSalesDTO;
+import com.bookstore.dto.CategorySalesDTO;
+import com.bookstore.dto.DailySalesDTO;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface SalesDao {
+    void addOrders(Collection<Long> orderIds, int sign, int slot);
+    
+    void rebuild();
+    
+    List<DailySalesDTO> findDaily(LocalDate from, LocalDate to);
+    
+    List<BookSalesDTO> findTopBooks(LocalDate from, LocalDate to, int limit);
+    
+    List<CategorySalesDTO> findByCategory(LocalDate from, LocalDate to);
+    
+    Map<Long, Long> findUnitsSoldByBook();
+    
+    Map<Long, Long> findUnitsByBook(Collection<Long> orderIds);
+}
@@ -0,0 +1,196 @@
+package com.bookstore.dao;
+
+import com.bookstore.dto.BookSalesDTO;
+import com.bookstore.dto.CategorySalesDTO;
+import com.bookstore.dto.DailySalesDTO;
+import com.bookstore.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rollup tables sales_daily, sales_by_book and sales_by_category.
+ * Orders are added with INSERT ... SELECT ... ON DUPLICATE KEY UPDATE statements that read only
+ * the rows of the given orders, so keeping the rollups current costs three statements per
+ * placed or cancelled batch of orders. Reports read the rollups only.
+ * Sales by category use the category stored on each order item when it was ordered, so moving a
+ * book to another category later does not make a cancellation reverse a different category.
+ */
+@Repository
+public class SalesDaoImpl implements SalesDao {
+
+    // Each statement takes the slot and the sign first, then the source filter arguments
+    private static final String ADD_DAILY =
+            "INSERT INTO sales_daily (sales_date, slot, order_count, units, revenue) " +
+            "SELECT DATE(o.order_date), ?, ? * COUNT(*), ? * SUM(x.item_units), ? * SUM(o.total_amount) " +
+            "FROM %1$s o JOIN (SELECT order_id, SUM(quantity) AS item_units FROM %2$s WHERE order_id IN (%3$s) " +
+            "GROUP BY order_id) x ON x.order_id = o.id WHERE o.id IN (%3$s) GROUP BY DATE(o.order_date) " +
+            "ON DUPLICATE KEY UPDATE sales_daily.order_count = sales_daily.order_count + VALUES(order_count), " +
+            "sales_daily.units = sales_daily.units + VALUES(units), " +
+            "sales_daily.revenue = sales_daily.revenue + VALUES(revenue)";
+
+    private static final String ADD_BY_BOOK =
+            "INSERT INTO sales_by_book (sales_date, book_id, slot, units, revenue) " +
+            "SELECT DATE(o.order_date), oi.book_id, ?, ? * SUM(oi.quantity), " +
+            "? * SUM(oi.quantity * oi.price - COALESCE(oi.discount, 0)) " +
+            "FROM %1$s o JOIN %2$s oi ON oi.order_id = o.id WHERE o.id IN (%3$s) " +
+            "GROUP BY DATE(o.order_date), oi.book_id " +
+            "ON DUPLICATE KEY UPDATE sales_by_book.units = sales_by_book.units + VALUES(units), " +
+            "sales_by_book.revenue = sales_by_book.revenue + VALUES(revenue)";
+
+    private static final String ADD_BY_CATEGORY =
+            "INSERT INTO sales_by_category (sales_date, category_id, slot, units, revenue) " +
+            "SELECT DATE(o.order_date), COALESCE(oi.category_id, 0), ?, ? * SUM(oi.quantity), " +
+            "? * SUM(oi.quantity * oi.price - COALESCE(oi.discount, 0)) " +
+            "FROM %1$s o JOIN %2$s oi ON oi.order_id = o.id " +
+            "WHERE o.id IN (%3$s) GROUP BY DATE(o.order_date), COALESCE(oi.category_id, 0) " +
+            "ON DUPLICATE KEY UPDATE sales_by_category.units = sales_by_category.units + VALUES(units), " +
+            "sales_by_category.revenue = sales_by_category.revenue + VALUES(revenue)";
+
+    private static final String SELECT_DAILY =
+            "SELECT sales_date, SUM(order_count), SUM(units), SUM(revenue) FROM sales_daily " +
+            "WHERE sales_date BETWEEN ? AND ? GROUP BY sales_date ORDER BY sales_date";
+
+    private static final String SELECT_TOP_BOOKS =
+            "SELECT s.book_id, b.title, SUM(s.units) AS total_units, SUM(s.revenue) FROM sales_by_book s " +
+            "LEFT JOIN books b ON b.id = s.book_id WHERE s.sales_date BETWEEN ? AND ? " +
+            "GROUP BY s.book_id, b.title ORDER BY total_units DESC, s.book_id LIMIT ?";
+
+    private static final String SELECT_BY_CATEGORY =
+            "SELECT s.category_id, c.name, SUM(s.units), SUM(s.revenue) AS total_revenue FROM sales_by_category s " +
+            "LEFT JOIN categories c ON c.id = s.category_id WHERE s.sales_date BETWEEN ? AND ? " +
+            "GROUP BY s.category_id, c.name ORDER BY total_revenue DESC";
+
+    private static final String SELECT_UNITS_BY_BOOK =
+            "SELECT book_id, SUM(units) FROM sales_by_book GROUP BY book_id";
+
+    private static final String SELECT_ORDER_UNITS_BY_BOOK =
+            "SELECT book_id, SUM(quantity) FROM order_items WHERE order_id IN (%s) GROUP BY book_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SalesDaoImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add orders to the rollups, or take them off again.
+     * Must run in the transaction that places the orders or changes their status; the orders and
+     * their items must already be written.
+     * @param orderIds Orders to count
+     * @param sign 1 to add the orders, -1 to reverse them
+     * @param slot Rollup slot to write to
+     */
+    @Override
+    public void addOrders(Collection<Long> orderIds, int sign, int slot) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String in = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        List<Object> ids = new ArrayList<>(orderIds);
+        update(ADD_DAILY, "orders", "order_items", in, slot, sign, 3, ids, ids);
+        update(ADD_BY_BOOK, "orders", "order_items", in, slot, sign, 2, ids);
+        update(ADD_BY_CATEGORY, "orders", "order_items", in, slot, sign, 2, ids);
+    }
+
+    /**
+     * Recompute the rollups from every order not cancelled, including archived ones.
+     * This reads the whole order history and is meant for the first deployment or repairs only.
+     * Must run inside a transaction.
+     */
+    @Override
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM sales_daily");
+        jdbcTemplate.update("DELETE FROM sales_by_book");
+        jdbcTemplate.update("DELETE FROM sales_by_category");
+        String counted = "SELECT id FROM %s WHERE status <> '" + OrderStatus.CANCELLED.name() + "'";
+        for (String[] tables : new String[][] {{"orders", "order_items"}, {"orders_archive", "order_items_archive"}}) {
+            String in = String.format(counted, tables[0]);
+            update(ADD_DAILY, tables[0], tables[1], in, 0, 1, 3);
+            update(ADD_BY_BOOK, tables[0], tables[1], in, 0, 1, 2);
+            update(ADD_BY_CATEGORY, tables[0], tables[1], in, 0, 1, 2);
+        }
+    }
+
+    @Override
+    public List<DailySalesDTO> findDaily(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SELECT_DAILY, (rs, rowNum) -> new DailySalesDTO(
+                rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    @Override
+    public List<BookSalesDTO> findTopBooks(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(SELECT_TOP_BOOKS, (rs, rowNum) -> new BookSalesDTO(
+                rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)),
+                Date.valueOf(from), Date.valueOf(to), limit);
+    }
+
+    @Override
+    public List<CategorySalesDTO> findByCategory(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SELECT_BY_CATEGORY, (rs, rowNum) -> {
+            long categoryId = rs.getLong(1);
+            return new CategorySalesDTO(categoryId == 0 ? null : categoryId, rs.getString(2),
+                    rs.getLong(3), rs.getBigDecimal(4));
+        }, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Get the units sold of every book over all time, from the rollups
+     * @return Units per book id; books without counted sales are left out
+     */
+    @Override
+    public Map<Long, Long> findUnitsSoldByBook() {
+        Map<Long, Long> units = new HashMap<>();
+        jdbcTemplate.query(SELECT_UNITS_BY_BOOK, rs -> {
+            if (rs.getLong(2) > 0) {
+                units.put(rs.getLong(1), rs.getLong(2));
+            }
+        });
+        return units;
+    }
+
+    /**
+     * Get the units per book of some orders not yet archived
+     * @param orderIds Order ids
+     * @return Units per book id
+     */
+    @Override
+    public Map<Long, Long> findUnitsByBook(Collection<Long> orderIds) {
+        Map<Long, Long> units = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return units;
+        }
+        String in = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        jdbcTemplate.query(String.format(SELECT_ORDER_UNITS_BY_BOOK, in),
+                rs -> {
+                    units.put(rs.getLong(1), rs.getLong(2));
+                }, orderIds.toArray());
+        return units;
+    }
+
+    // Helper method to run one rollup statement: slot, then the sign once per signed column, then the id lists
+    @SafeVarargs
+    private void update(String template, String ordersTable, String itemsTable, String in,
+                        int slot, int sign, int signedColumns, List<Object>... idLists) {
+        List<Object> args = new ArrayList<>();
+        args.add(slot);
+        for (int i = 0; i < signedColumns; i++) {
+            args.add(sign);
+        }
+        for (List<Object> ids : idLists) {
+            args.addAll(ids);
+        }
+        jdbcTemplate.update(String.format(template, ordersTable, itemsTable, in), args.toArray());
+    }
+}
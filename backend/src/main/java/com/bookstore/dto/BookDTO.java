@@ -11,7 +11,7 @@ import javax.validation.constraints.Positive;
 import java.math.BigDecimal;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookDTO {
@@ -42,4 +42,18 @@ public class BookDTO {
     private Integer stockQuantity;
     
     private String imageUrl;
+
+    // Listing projection used by BookRepository: every column but the description
+    public BookDTO(Long id, String title, String author, String isbn, BigDecimal price,
+                   Long categoryId, String categoryName, Integer stockQuantity, String imageUrl) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.stockQuantity = stockQuantity;
+        this.imageUrl = imageUrl;
+    }
 } 
\ No newline at end of file
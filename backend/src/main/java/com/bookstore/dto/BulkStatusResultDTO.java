@@ -0,0 +1,22 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+    private OrderStatus status;
+
+    private int requested;
+
+    private int updated;
+
+    private List<OrderStatusResultDTO> results = new ArrayList<>();
+}
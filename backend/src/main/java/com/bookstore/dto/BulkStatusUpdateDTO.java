@@ -0,0 +1,31 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status change for many orders at once, selected by id or by a search filter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateDTO {
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+
+    private List<Long> orderIds = new ArrayList<>();
+
+    // Used instead of orderIds when no ids are given
+    private OrderSearchCriteria filter;
+
+    // Tracking number per order id, set together with the status
+    private Map<Long, String> trackingNumbers = new HashMap<>();
+}
@@ -0,0 +1,27 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDTO {
+    private List<CartItemDTO> items = new ArrayList<>();
+
+    private int totalItems;
+
+    // Before discounts
+    private BigDecimal subtotal;
+
+    private BigDecimal discount;
+
+    private BigDecimal totalAmount;
+
+    private String couponCode;
+}
@@ -0,0 +1,34 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemDTO {
+    @NotNull(message = "Book ID is required")
+    private Long bookId;
+
+    private String title;
+
+    private String author;
+
+    private String imageUrl;
+
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be positive")
+    private Integer quantity;
+
+    private BigDecimal price;
+
+    // Promotion discount on the whole line, null when none applies
+    private BigDecimal discount;
+
+    private BigDecimal subtotal;
+}
@@ -0,0 +1,21 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySalesDTO {
+    // Null for books without a category
+    private Long categoryId;
+
+    private String categoryName;
+
+    private long units;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,26 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) paginated listing.
+ * Unlike Page there is no total: nextCursor is passed back to fetch the following page
+ * and is null on the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content = new ArrayList<>();
+
+    private int size;
+
+    private String nextCursor;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,19 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+    // Value to send back as a filter, e.g. a category id or a price bucket key
+    private String value;
+
+    private String label;
+
+    private long count;
+
+    private boolean selected;
+}
@@ -0,0 +1,19 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedBooksDTO {
+    private Page<BookDTO> books;
+
+    // Facet name ("category", "price", "inStock", "author") -> counts per value
+    private Map<String, List<FacetCountDTO>> facets;
+}
@@ -0,0 +1,17 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRejectDTO {
+    // Line of the feed the rejected record starts on
+    private long line;
+
+    private String isbn;
+
+    private String reason;
+}
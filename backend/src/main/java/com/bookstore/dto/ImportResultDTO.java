@@ -0,0 +1,26 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private long received;
+
+    private long imported;
+
+    private long rejected;
+
+    // First rejected records; rejectsTruncated is set when there were more than were kept
+    private List<ImportRejectDTO> rejects = new ArrayList<>();
+
+    private boolean rejectsTruncated;
+
+    private long elapsedMillis;
+}
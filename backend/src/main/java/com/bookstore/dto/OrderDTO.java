@@ -35,6 +35,8 @@ public class OrderDTO {
 
     private String trackingNumber;
 
+    private String couponCode;
+
     @NotEmpty(message = "Order must contain at least one item")
     private Set<OrderItemDTO> orderItems = new HashSet<>();
 }
\ No newline at end of file
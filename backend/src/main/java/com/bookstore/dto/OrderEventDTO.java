@@ -0,0 +1,24 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to a customer's event stream when one of their orders changes status or tracking number
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDTO {
+    private Long orderId;
+
+    private OrderStatus status;
+
+    private String trackingNumber;
+
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,28 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeDTO {
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PLACED = "PLACED";
+    public static final String STATUS_REJECTED = "REJECTED";
+
+    private String ticket;
+
+    private String status;
+
+    // Set once the order is placed; the full order is then available from /api/orders/{orderId}
+    private Long orderId;
+
+    private BigDecimal totalAmount;
+
+    // Reason for a rejection
+    private String message;
+}
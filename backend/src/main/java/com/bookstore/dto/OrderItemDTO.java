@@ -27,5 +27,7 @@ public class OrderItemDTO {
     
     private BigDecimal price;
     
+    private BigDecimal discount;
+    
     private BigDecimal subtotal;
 }
@@ -0,0 +1,32 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filters of the admin order search; null fields do not filter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchCriteria {
+    private List<OrderStatus> statuses;
+
+    // Order date window, from inclusive and to exclusive
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private String username;
+
+    // Total amount range, both inclusive
+    private BigDecimal minAmount;
+
+    private BigDecimal maxAmount;
+}
@@ -0,0 +1,30 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One keyset page of admin order search results.
+ * matchCount is only computed for the first page, and is counted up to a limit: when
+ * matchCountExact is false there are at least matchCount matches.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchResultDTO {
+    private List<OrderDTO> content = new ArrayList<>();
+
+    private int size;
+
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    private Long matchCount;
+
+    private boolean matchCountExact;
+}
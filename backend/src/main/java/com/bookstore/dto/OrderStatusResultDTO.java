@@ -0,0 +1,22 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResultDTO {
+    public static final String RESULT_UPDATED = "UPDATED";
+    public static final String RESULT_NOT_FOUND = "NOT_FOUND";
+    public static final String RESULT_REJECTED = "REJECTED";
+
+    private Long orderId;
+
+    private String result;
+
+    // Status before the update, null when the order does not exist
+    private OrderStatus previousStatus;
+}
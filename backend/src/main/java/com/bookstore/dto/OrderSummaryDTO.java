@@ -0,0 +1,45 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order history row: the order's own columns, with its items only when they were asked for
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Long id;
+
+    private LocalDateTime orderDate;
+
+    private OrderStatus status;
+
+    private BigDecimal totalAmount;
+
+    private String shippingAddress;
+
+    private String trackingNumber;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<OrderItemDTO> orderItems;
+
+    // Constructor used by the JPQL projection, which never selects items
+    public OrderSummaryDTO(Long id, LocalDateTime orderDate, OrderStatus status, BigDecimal totalAmount,
+                           String shippingAddress, String trackingNumber) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.shippingAddress = shippingAddress;
+        this.trackingNumber = trackingNumber;
+    }
+}
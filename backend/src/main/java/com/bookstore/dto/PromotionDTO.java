@@ -0,0 +1,45 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.PromotionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionDTO {
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    @NotNull(message = "Type is required")
+    private PromotionType type;
+
+    // At most one of bookId and categoryId; neither makes the promotion storewide
+    private Long bookId;
+
+    private Long categoryId;
+
+    private String couponCode;
+
+    private BigDecimal percentOff;
+
+    private BigDecimal amountOff;
+
+    private Integer buyQuantity;
+
+    private Integer freeQuantity;
+
+    private boolean active = true;
+
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+}
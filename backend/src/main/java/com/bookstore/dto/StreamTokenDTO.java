@@ -0,0 +1,17 @@
+package com.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Short-lived token for opening the order event stream from a browser EventSource
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamTokenDTO {
+    private String token;
+
+    private long expiresInMs;
+}
@@ -0,0 +1,45 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order moved out of the orders table by OrderArchiver once it reached a terminal status.
+ * Keeps the original id and copies the username, so it can be shown without the users table.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_user_order_date", columnList = "userId, orderDate")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private String username;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private BigDecimal totalAmount;
+
+    private String shippingAddress;
+
+    private String trackingNumber;
+
+    private String couponCode;
+
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,39 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Item of an ArchivedOrder; copies the book title so that deleted books still show
+ */
+@Entity
+@Table(name = "order_items_archive", indexes = {
+        @Index(name = "idx_order_items_archive_order_id", columnList = "orderId")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrderItem {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private String bookTitle;
+
+    private Integer quantity;
+
+    private BigDecimal price;
+
+    private BigDecimal discount;
+
+    private Long categoryId;
+}
@@ -0,0 +1,55 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key, kept so that retries get the
+ * original response instead of repeating the work
+ */
+@Entity
+@Table(name = "idempotency_keys",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"})
+    },
+    indexes = {
+        // Expired keys are purged by age
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "createdAt")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, to refuse a key reused for a different request
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // Identifies the attempt holding the key; changes when an expired claim is taken over
+    @Column(nullable = false, length = 36)
+    private String claimToken;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime claimedAt;
+}
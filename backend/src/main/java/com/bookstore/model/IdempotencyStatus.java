@@ -0,0 +1,6 @@
+package com.bookstore.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
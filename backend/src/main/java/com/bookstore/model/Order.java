@@ -1,5 +1,6 @@
 package com.bookstore.model;
 
+import com.bookstore.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,7 +12,17 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination seeks on (sort column, id)
+        @Index(name = "idx_orders_order_date_id", columnList = "orderDate, id"),
+        // A user's order history seeks on (orderDate, id) within the user
+        @Index(name = "idx_orders_user_order_date_id", columnList = "user_id, orderDate, id"),
+        // Admin search by status, newest first, and by amount
+        @Index(name = "idx_orders_status_order_date_id", columnList = "status, orderDate, id"),
+        @Index(name = "idx_orders_total_amount_id", columnList = "totalAmount, id"),
+        // Startup reconciliation looks up orders whose reserved stock was not yet written back
+        @Index(name = "idx_orders_stock_settled", columnList = "stockSettled")
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +31,7 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -35,6 +46,12 @@ public class Order {
 
     private String trackingNumber;
 
+    // Coupon the customer entered, if any
+    private String couponCode;
+
+    // False while the stock of an order placed through InventoryReservations is not yet in books
+    private Boolean stockSettled;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<OrderItem> orderItems = new HashSet<>();
 
@@ -60,8 +77,10 @@ public class Order {
 
     // Helper method to calculate total amount
     public void calculateTotalAmount() {
-        totalAmount = orderItems.stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (OrderItem orderItem : orderItems) {
+            total = Math.addExact(total, orderItem.getSubtotalMinorUnits());
+        }
+        totalAmount = Money.toBigDecimal(total);
     }
 }
\ No newline at end of file
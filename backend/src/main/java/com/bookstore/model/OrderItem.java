@@ -1,8 +1,13 @@
 package com.bookstore.model;
 
-import lombok.AllArgsConstructor;
+import com.bookstore.util.Money;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -13,17 +18,16 @@ import java.math.BigDecimal;
 @Table(name = "order_items")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class OrderItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
@@ -34,8 +38,53 @@ public class OrderItem {
     @NotNull
     private BigDecimal price;
 
+    // Promotion discount on the whole line, null when none applied
+    private BigDecimal discount;
+
+    // Category of the book when it was ordered; sales by category group by this, not the book's current one.
+    // 0 when the book had none; null only on items written before the column existed
+    private Long categoryId;
+
+    // price and discount in minor units, converted once when set or loaded rather than per subtotal
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private long priceMinorUnits;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private long discountMinorUnits;
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+        this.priceMinorUnits = price == null ? 0 : Money.toMinorUnits(price);
+    }
+
+    public void setDiscount(BigDecimal discount) {
+        this.discount = discount;
+        this.discountMinorUnits = discount == null ? 0 : Money.toMinorUnits(discount);
+    }
+
+    // Hibernate sets the columns through the fields, bypassing the setters above
+    @PostLoad
+    void cacheMinorUnits() {
+        setPrice(price);
+        setDiscount(discount);
+    }
+
     @Transient
     public BigDecimal getSubtotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+        return Money.toBigDecimal(getSubtotalMinorUnits());
+    }
+
+    // Line total in minor units, for summing without a BigDecimal per line
+    @Transient
+    public long getSubtotalMinorUnits() {
+        return Math.subtractExact(Money.lineTotal(priceMinorUnits, quantity), discountMinorUnits);
     }
 } 
\ No newline at end of file
@@ -1,9 +1,39 @@
 package com.bookstore.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
-} 
\ No newline at end of file
+    CANCELLED;
+
+    /**
+     * Whether no further transition leaves this status; such orders are eventually archived
+     * @return true for DELIVERED and CANCELLED
+     */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
+
+    /**
+     * Get the statuses an order may move to this status from
+     * @return Allowed prior statuses; empty for PENDING, which only new orders have
+     */
+    public Set<OrderStatus> allowedPredecessors() {
+        switch (this) {
+            case PROCESSING:
+                return EnumSet.of(PENDING);
+            case SHIPPED:
+                return EnumSet.of(PENDING, PROCESSING);
+            case DELIVERED:
+                return EnumSet.of(SHIPPED);
+            case CANCELLED:
+                return EnumSet.of(PENDING, PROCESSING);
+            default:
+                return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+}
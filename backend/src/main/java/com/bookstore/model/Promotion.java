@@ -0,0 +1,58 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Discount rule applied at checkout by PromotionEngine.
+ * Scoped to one book, one category, or the whole store when neither is set. With a coupon
+ * code it only applies to orders that present the code. Several promotions may share a code,
+ * e.g. one campaign with a different discount per category.
+ */
+@Entity
+@Table(name = "promotions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Promotion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PromotionType type;
+
+    private Long bookId;
+
+    private Long categoryId;
+
+    @Column(length = 64)
+    private String couponCode;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percentOff;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal amountOff;
+
+    private Integer buyQuantity;
+
+    private Integer freeQuantity;
+
+    @Column(nullable = false)
+    private Boolean active;
+
+    // Optional validity window
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+}
@@ -0,0 +1,10 @@
+package com.bookstore.model;
+
+public enum PromotionType {
+    // percentOff of the line total
+    PERCENT_OFF,
+    // amountOff per unit, at most the unit price
+    AMOUNT_OFF,
+    // For every buyQuantity + freeQuantity units, freeQuantity are free
+    BUY_N_GET_M
+}
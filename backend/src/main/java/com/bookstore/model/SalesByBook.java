@@ -0,0 +1,40 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Units and revenue of one book on one day, split over slots like SalesDaily
+ */
+@Entity
+@Table(name = "sales_by_book",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_by_book_date_book_slot", columnNames = {"salesDate", "bookId", "slot"})
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesByBook {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    private Long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,42 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Units and revenue of one category on one day, split over slots like SalesDaily.
+ * Books without a category are counted under category id 0.
+ */
+@Entity
+@Table(name = "sales_by_category",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_by_category_date_category_slot",
+                columnNames = {"salesDate", "categoryId", "slot"})
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesByCategory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    private Long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
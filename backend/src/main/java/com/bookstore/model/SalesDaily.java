@@ -0,0 +1,41 @@
+package com.bookstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Orders, units and revenue of one day, maintained by SalesService as orders are placed or
+ * cancelled. Each day is split over a few slots so that concurrent orders do not all update
+ * the same row; a day's figures are the sum of its slots.
+ */
+@Entity
+@Table(name = "sales_daily",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_daily_date_slot", columnNames = {"salesDate", "slot"})
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    private Long orderCount;
+
+    private Long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -1,29 +1,53 @@
 package com.bookstore.repository;
 
+import com.bookstore.dto.BookDTO;
 import com.bookstore.model.Book;
 import com.bookstore.model.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+    // Listing projection: only the columns a catalog card needs, category name joined in
+    String LISTING_SELECT = "SELECT new com.bookstore.dto.BookDTO(b.id, b.title, b.author, b.isbn, b.price, " +
+                            "c.id, c.name, b.stockQuantity, b.imageUrl) FROM Book b LEFT JOIN b.category c";
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Book> findAll();
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Book> findById(Long id);
+    
+    @Query(value = LISTING_SELECT, countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookDTO> findAllListings(Pageable pageable);
+    
+    @Query(value = LISTING_SELECT + " WHERE c.id = :categoryId",
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE b.category.id = :categoryId")
+    Page<BookDTO> findListingsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    @Query(LISTING_SELECT + " WHERE b.id IN :ids")
+    List<BookDTO> findListingsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "category")
+    List<Book> findByIsbnIn(Collection<String> isbns);
+    
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
     
     Page<Book> findByAuthorContainingIgnoreCase(String author, Pageable pageable);
     
     Page<Book> findByCategory(Category category, Pageable pageable);
     
-    @Query("SELECT b FROM Book b WHERE " +
-           "LOWER(b.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(b.author) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    Page<Book> searchBooks(@Param("searchTerm") String searchTerm, Pageable pageable);
-    
+    @EntityGraph(attributePaths = "category")
     List<Book> findTop10ByOrderByIdDesc();
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.IdempotencyRecord;
+import com.bookstore.model.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+    
+    // Takes over a claim whose holder did not finish within the lease
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimToken = :token, r.claimedAt = :now " +
+           "WHERE r.id = :id AND r.status = :status AND r.claimedAt < :expiredBefore")
+    int takeOver(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now,
+                 @Param("status") IdempotencyStatus status, @Param("expiredBefore") LocalDateTime expiredBefore);
+    
+    // Runs in the caller's transaction, so the response is stored if and only if its work commits
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.response = :response " +
+           "WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.claimToken = :token")
+    int complete(@Param("userId") Long userId, @Param("key") String key, @Param("token") String token,
+                 @Param("status") IdempotencyStatus status, @Param("response") String response);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+           "WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.claimToken = :token")
+    int release(@Param("userId") Long userId, @Param("key") String key, @Param("token") String token);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -5,13 +5,32 @@ import com.bookstore.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserOrderByOrderDateDesc(User user);
+    // Loads orders with their user, items and item books in one statement
+    String WITH_DETAILS = "SELECT DISTINCT o FROM Order o JOIN FETCH o.user " +
+                          "LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.book";
+    
+    @Query(WITH_DETAILS + " WHERE o.user = :user ORDER BY o.orderDate DESC")
+    List<Order> findByUserOrderByOrderDateDesc(@Param("user") User user);
     
     Page<Order> findByUser(User user, Pageable pageable);
+    
+    @Query(WITH_DETAILS + " WHERE o.id = :id")
+    Optional<Order> findWithDetailsById(@Param("id") Long id);
+    
+    @Query(WITH_DETAILS + " WHERE o.id IN :ids")
+    List<Order> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // First phase of paged detail listings: page over ids only, then fetch those orders
+    @Query(value = "SELECT o.id FROM Order o", countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Long> findAllIds(Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,427 @@
+package com.bookstore.search;
+
+import com.bookstore.dto.FacetCountDTO;
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitset index over the catalog for faceted browsing.
+ * Every book gets a dense ordinal; each facet value (category, price bucket, in stock, author)
+ * owns a bitset of ordinals. A filter is an AND of per-facet ORs, and facet counts are
+ * intersections with the other facets' filters, so one request yields both the matching
+ * books and the counts for the filter sidebar without touching the database.
+ */
+@Component
+public class BookFacetIndex implements CatalogObserver {
+
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_PRICE = "price";
+    public static final String FACET_IN_STOCK = "inStock";
+    public static final String FACET_AUTHOR = "author";
+
+    // Upper bounds of the price buckets; the last bucket is open-ended
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")
+    };
+    public static final List<String> PRICE_BUCKETS = List.of("0-250", "250-500", "500-1000", "1000-");
+
+    private static final int MAX_AUTHOR_FACETS = 20;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] bookIds = new long[0];
+    private int[] stock = new int[0];
+    private long[] categoryOf = new long[0];
+    private int[] priceBucketOf = new int[0];
+    private String[] authorOf = new String[0];
+
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final BitSet[] byPrice = new BitSet[PRICE_BUCKETS.size()];
+    private final Map<String, BitSet> byAuthor = new HashMap<>();
+
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<String, String> authorNames = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BookFacetIndex() {
+        for (int i = 0; i < byPrice.length; i++) {
+            byPrice[i] = new BitSet();
+        }
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            freeOrdinals.clear();
+            live.clear();
+            inStock.clear();
+            byCategory.clear();
+            byAuthor.clear();
+            categoryNames.clear();
+            authorNames.clear();
+            for (BitSet bucket : byPrice) {
+                bucket.clear();
+            }
+            for (Book book : books) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        lock.writeLock().lock();
+        try {
+            remove(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockAdjusted(Long bookId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(bookId);
+            if (ordinal != null) {
+                stock[ordinal] += delta;
+                inStock.set(ordinal, stock[ordinal] > 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filter the catalog and count every facet value
+     * @param query Facet filters
+     * @param offset Number of matching books to skip (books are ordered by id)
+     * @param limit Maximum number of ids to return
+     * @return One page of matching book ids, the total and the facet counts
+     */
+    public FacetResult browse(FacetQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet categoryFilter = unionOf(byCategory, query.getCategoryIds());
+            BitSet priceFilter = priceFilter(query.getPriceBuckets());
+            BitSet stockFilter = stockFilter(query.getInStock());
+            BitSet authorFilter = unionOf(byAuthor, normalizeAll(query.getAuthors()));
+
+            BitSet matching = intersect(live, categoryFilter, priceFilter, stockFilter, authorFilter);
+
+            // Each facet is counted against the other facets' filters, so selecting one value
+            // does not hide the alternatives within the same facet
+            Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+            facets.put(FACET_CATEGORY, categoryCounts(
+                    intersect(live, priceFilter, stockFilter, authorFilter), query.getCategoryIds()));
+            facets.put(FACET_PRICE, priceCounts(
+                    intersect(live, categoryFilter, stockFilter, authorFilter), query.getPriceBuckets()));
+            facets.put(FACET_IN_STOCK, stockCounts(
+                    intersect(live, categoryFilter, priceFilter, authorFilter), query.getInStock()));
+            facets.put(FACET_AUTHOR, authorCounts(
+                    intersect(live, categoryFilter, priceFilter, stockFilter), normalizeAll(query.getAuthors())));
+
+            return new FacetResult(page(matching, offset, limit), matching.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<FacetCountDTO> categoryCounts(BitSet base, Set<Long> selected) {
+        List<FacetCountDTO> counts = new ArrayList<>();
+        for (Map.Entry<Long, BitSet> entry : byCategory.entrySet()) {
+            long count = andCardinality(base, entry.getValue());
+            boolean isSelected = selected != null && selected.contains(entry.getKey());
+            if (count > 0 || isSelected) {
+                counts.add(new FacetCountDTO(entry.getKey().toString(), categoryNames.get(entry.getKey()),
+                        count, isSelected));
+            }
+        }
+        counts.sort((a, b) -> a.getLabel().compareToIgnoreCase(b.getLabel()));
+        return counts;
+    }
+
+    private List<FacetCountDTO> priceCounts(BitSet base, Set<String> selected) {
+        List<FacetCountDTO> counts = new ArrayList<>();
+        for (int i = 0; i < byPrice.length; i++) {
+            String key = PRICE_BUCKETS.get(i);
+            counts.add(new FacetCountDTO(key, key, andCardinality(base, byPrice[i]),
+                    selected != null && selected.contains(key)));
+        }
+        return counts;
+    }
+
+    private List<FacetCountDTO> stockCounts(BitSet base, Boolean selected) {
+        long available = andCardinality(base, inStock);
+        return List.of(
+                new FacetCountDTO("true", "In stock", available, Boolean.TRUE.equals(selected)),
+                new FacetCountDTO("false", "Out of stock", base.cardinality() - available,
+                        Boolean.FALSE.equals(selected)));
+    }
+
+    // Authors are too many to intersect one by one, so tally them in a single pass over the base set
+    private List<FacetCountDTO> authorCounts(BitSet base, Set<String> selected) {
+        Map<String, Long> tally = new HashMap<>();
+        for (int ordinal = base.nextSetBit(0); ordinal >= 0; ordinal = base.nextSetBit(ordinal + 1)) {
+            if (authorOf[ordinal] != null) {
+                tally.merge(authorOf[ordinal], 1L, Long::sum);
+            }
+        }
+        for (String author : selected) {
+            tally.putIfAbsent(author, 0L);
+        }
+
+        List<FacetCountDTO> counts = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : tally.entrySet()) {
+            String label = authorNames.getOrDefault(entry.getKey(), entry.getKey());
+            counts.add(new FacetCountDTO(label, label, entry.getValue(), selected.contains(entry.getKey())));
+        }
+        counts.sort((a, b) -> {
+            if (a.isSelected() != b.isSelected()) {
+                return a.isSelected() ? -1 : 1;
+            }
+            int byCount = Long.compare(b.getCount(), a.getCount());
+            return byCount != 0 ? byCount : a.getLabel().compareToIgnoreCase(b.getLabel());
+        });
+        return counts.size() > MAX_AUTHOR_FACETS ? new ArrayList<>(counts.subList(0, MAX_AUTHOR_FACETS)) : counts;
+    }
+
+    // Helper method to return the requested slice of matching ids in ascending id order
+    private List<Long> page(BitSet matching, int offset, int limit) {
+        long[] ids = new long[matching.cardinality()];
+        int n = 0;
+        for (int ordinal = matching.nextSetBit(0); ordinal >= 0; ordinal = matching.nextSetBit(ordinal + 1)) {
+            ids[n++] = bookIds[ordinal];
+        }
+        Arrays.sort(ids);
+
+        List<Long> page = new ArrayList<>();
+        if (offset < 0) {
+            return page;
+        }
+        for (int i = offset; i < ids.length && page.size() < limit; i++) {
+            page.add(ids[i]);
+        }
+        return page;
+    }
+
+    private BitSet priceFilter(Set<String> buckets) {
+        if (buckets == null || buckets.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (String bucket : buckets) {
+            int index = PRICE_BUCKETS.indexOf(bucket);
+            if (index >= 0) {
+                union.or(byPrice[index]);
+            }
+        }
+        return union;
+    }
+
+    private BitSet stockFilter(Boolean wantInStock) {
+        if (wantInStock == null) {
+            return null;
+        }
+        if (wantInStock) {
+            return inStock;
+        }
+        BitSet outOfStock = (BitSet) live.clone();
+        outOfStock.andNot(inStock);
+        return outOfStock;
+    }
+
+    private static <K> BitSet unionOf(Map<K, BitSet> bitsets, Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (K key : keys) {
+            BitSet bits = bitsets.get(key);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        return union;
+    }
+
+    // Null filters are skipped, i.e. they match everything
+    private static BitSet intersect(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static long andCardinality(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    private static Set<String> normalizeAll(Set<String> values) {
+        Set<String> normalized = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                normalized.add(TextAnalyzer.normalize(value));
+            }
+        }
+        return normalized;
+    }
+
+    private void add(Book book) {
+        int ordinal = freeOrdinals.isEmpty() ? ordinals.size() : freeOrdinals.pop();
+        ensureCapacity(ordinal + 1);
+        ordinals.put(book.getId(), ordinal);
+        bookIds[ordinal] = book.getId();
+        live.set(ordinal);
+
+        stock[ordinal] = book.getStockQuantity() == null ? 0 : book.getStockQuantity();
+        inStock.set(ordinal, stock[ordinal] > 0);
+
+        categoryOf[ordinal] = -1;
+        if (book.getCategory() != null && book.getCategory().getId() != null) {
+            Long categoryId = book.getCategory().getId();
+            categoryOf[ordinal] = categoryId;
+            categoryNames.put(categoryId, book.getCategory().getName());
+            byCategory.computeIfAbsent(categoryId, k -> new BitSet()).set(ordinal);
+        }
+
+        priceBucketOf[ordinal] = priceBucket(book.getPrice());
+        if (priceBucketOf[ordinal] >= 0) {
+            byPrice[priceBucketOf[ordinal]].set(ordinal);
+        }
+
+        String author = TextAnalyzer.normalize(book.getAuthor());
+        authorOf[ordinal] = author.isEmpty() ? null : author;
+        if (authorOf[ordinal] != null) {
+            authorNames.putIfAbsent(author, book.getAuthor().trim());
+            byAuthor.computeIfAbsent(author, k -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void remove(Long bookId) {
+        Integer ordinal = ordinals.remove(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        live.clear(ordinal);
+        inStock.clear(ordinal);
+        if (categoryOf[ordinal] >= 0) {
+            clearBit(byCategory, categoryOf[ordinal], ordinal);
+        }
+        if (priceBucketOf[ordinal] >= 0) {
+            byPrice[priceBucketOf[ordinal]].clear(ordinal);
+        }
+        if (authorOf[ordinal] != null) {
+            if (clearBit(byAuthor, authorOf[ordinal], ordinal)) {
+                authorNames.remove(authorOf[ordinal]);
+            }
+            authorOf[ordinal] = null;
+        }
+        freeOrdinals.push(ordinal);
+    }
+
+    // Returns true when the value no longer has any books
+    private static <K> boolean clearBit(Map<K, BitSet> bitsets, K key, int ordinal) {
+        BitSet bits = bitsets.get(key);
+        if (bits == null) {
+            return false;
+        }
+        bits.clear(ordinal);
+        if (bits.isEmpty()) {
+            bitsets.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (price.compareTo(PRICE_BOUNDS[i]) < 0) {
+                return i;
+            }
+        }
+        return PRICE_BOUNDS.length;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= bookIds.length) {
+            return;
+        }
+        int capacity = Math.max(size, Math.max(16, bookIds.length * 2));
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        categoryOf = Arrays.copyOf(categoryOf, capacity);
+        priceBucketOf = Arrays.copyOf(priceBucketOf, capacity);
+        authorOf = Arrays.copyOf(authorOf, capacity);
+    }
+
+    /**
+     * One page of matching book ids plus the total and the facet counts
+     */
+    public static final class FacetResult {
+        private final List<Long> bookIds;
+        private final long total;
+        private final Map<String, List<FacetCountDTO>> facets;
+
+        FacetResult(List<Long> bookIds, long total, Map<String, List<FacetCountDTO>> facets) {
+            this.bookIds = bookIds;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public List<Long> getBookIds() {
+            return bookIds;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, List<FacetCountDTO>> getFacets() {
+            return facets;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over title, author, ISBN and description.
+ * Documents are ranked with BM25 over field-weighted term frequencies, so a title hit
+ * counts for more than the same word buried in a description.
+ * Only book ids are kept here; callers hydrate the page of ids from the database.
+ * In fuzzy mode each query word is also expanded to the closest title and author terms
+ * found through a trigram index, weighted down by edit distance.
+ */
+@Component
+public class BookSearchIndex implements CatalogObserver {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float ISBN_WEIGHT = 4.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Query terms of at least this length also match longer terms they are a prefix of
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double PREFIX_MATCH_BOOST = 0.5;
+
+    // Fuzzy mode: how many near terms a query word may expand to
+    private static final int MAX_FUZZY_EXPANSIONS = 8;
+
+    // term -> (book id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    // book id -> indexed terms and weighted length, needed to remove or replace a document
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+
+    // Vocabulary of title and author terms, for typo-tolerant matching
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private double totalLength;
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            trigramIndex.clear();
+            totalLength = 0;
+            for (Book book : books) {
+                addDocument(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getId());
+            addDocument(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank the books matching a free-text query
+     * @param query Free-text query
+     * @param fuzzy Whether to also match terms within a small edit distance of the query words
+     * @param offset Number of ranked hits to skip
+     * @param limit Maximum number of ids to return
+     * @return The requested slice of ranked book ids and the total number of hits
+     */
+    public SearchHits search(String query, boolean fuzzy, int offset, int limit) {
+        List<String> queryTerms = TextAnalyzer.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return SearchHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Float> exact = postings.get(term);
+                if (exact != null) {
+                    accumulate(scores, exact, 1.0);
+                }
+                if (term.length() >= MIN_PREFIX_LENGTH) {
+                    accumulatePrefixMatches(scores, term);
+                }
+                if (fuzzy) {
+                    accumulateFuzzyMatches(scores, term);
+                }
+            }
+            return topHits(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Helper method to add the BM25 contribution of one posting list to the running scores
+    private void accumulate(Map<Long, Double> scores, Map<Long, Float> postingList, double boost) {
+        int docCount = documents.size();
+        double idf = Math.log(1 + (docCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+        double avgLength = docCount == 0 ? 1 : totalLength / docCount;
+
+        for (Map.Entry<Long, Float> posting : postingList.entrySet()) {
+            double tf = posting.getValue();
+            double length = documents.get(posting.getKey()).length;
+            double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+            scores.merge(posting.getKey(), boost * score, Double::sum);
+        }
+    }
+
+    private void accumulatePrefixMatches(Map<Long, Double> scores, String prefix) {
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(prefix, false).entrySet()) {
+            if (!entry.getKey().startsWith(prefix) || expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(scores, entry.getValue(), PREFIX_MATCH_BOOST);
+        }
+    }
+
+    private void accumulateFuzzyMatches(Map<Long, Double> scores, String word) {
+        for (TrigramIndex.TermMatch match : trigramIndex.closestTerms(word, MAX_FUZZY_EXPANSIONS)) {
+            if (match.getDistance() == 0) {
+                continue; // already scored as an exact match
+            }
+            Map<Long, Float> postingList = postings.get(match.getTerm());
+            if (postingList != null) {
+                accumulate(scores, postingList, 1.0 / (1 + match.getDistance()));
+            }
+        }
+    }
+
+    // Helper method to select one page of hits by descending score, ties broken by id
+    private SearchHits topHits(Map<Long, Double> scores, int offset, int limit) {
+        if (scores.isEmpty() || limit <= 0 || offset < 0 || offset >= scores.size()) {
+            return new SearchHits(Collections.emptyList(), scores.size());
+        }
+        // offset is below the number of hits here, so this cannot overflow
+        int wanted = offset + Math.min(limit, scores.size());
+
+        // Min-heap holding the best `wanted` hits seen so far
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Math.min(wanted, scores.size()) + 1,
+                (a, b) -> {
+                    int byScore = Double.compare(a.getValue(), b.getValue());
+                    return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+                });
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return new SearchHits(ranked.subList(Math.min(offset, ranked.size()), ranked.size()), scores.size());
+    }
+
+    private void addDocument(Book book) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        length += addField(termFrequencies, book.getTitle(), TITLE_WEIGHT);
+        length += addField(termFrequencies, book.getAuthor(), AUTHOR_WEIGHT);
+        Set<String> nameTerms = new HashSet<>(termFrequencies.keySet());
+        length += addField(termFrequencies, book.getIsbn(), ISBN_WEIGHT);
+        length += addField(termFrequencies, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(book.getId(), entry.getValue());
+        }
+        for (String term : nameTerms) {
+            trigramIndex.add(term);
+        }
+        documents.put(book.getId(), new IndexedDocument(
+                termFrequencies.keySet().toArray(new String[0]), nameTerms.toArray(new String[0]), length));
+        totalLength += length;
+    }
+
+    private float addField(Map<String, Float> termFrequencies, String text, float weight) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        for (String token : tokens) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private void removeDocument(Long bookId) {
+        IndexedDocument document = documents.remove(bookId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(bookId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (String term : document.nameTerms) {
+            trigramIndex.remove(term);
+        }
+        totalLength -= document.length;
+    }
+
+    private static final class IndexedDocument {
+        private final String[] terms;
+        private final String[] nameTerms;
+        private final float length;
+
+        private IndexedDocument(String[] terms, String[] nameTerms, float length) {
+            this.terms = terms;
+            this.nameTerms = nameTerms;
+            this.length = length;
+        }
+    }
+
+    /**
+     * One page of ranked book ids plus the total hit count
+     */
+    public static final class SearchHits {
+        static final SearchHits EMPTY = new SearchHits(Collections.emptyList(), 0);
+
+        private final List<Long> bookIds;
+        private final long total;
+
+        SearchHits(List<Long> bookIds, long total) {
+            this.bookIds = bookIds;
+            this.total = total;
+        }
+
+        public List<Long> getBookIds() {
+            return bookIds;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.bookstore.search;
+
+import com.bookstore.dao.SalesDao;
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix autocomplete over book titles and author names.
+ * Completions live in a sorted array of normalized keys, so a prefix maps to one contiguous
+ * range found by binary search. A max segment tree over the sales weights then yields the
+ * top-N entries of that range in O(N log M) without scanning it.
+ * Every word start of a title or name is a key, so "tolk" completes "J.R.R. Tolkien".
+ * Sales weights start from the sales_by_book rollups, which leave out cancelled orders and keep
+ * archived ones, and then follow placed and cancelled orders through recordSale.
+ * Snapshots are rebuilt on a background thread shortly after books change (and at most once a
+ * minute for sales) and swapped in with one volatile write; suggest() only ever reads the last
+ * built snapshot and never waits for a rebuild.
+ */
+@Component
+public class BookSuggestIndex implements CatalogObserver {
+
+    // Sales weights may lag behind orders by this much before the arrays are rebuilt
+    private static final long WEIGHT_REFRESH_INTERVAL_MS = 60_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSuggestIndex.class);
+
+    private final SalesDao salesDao;
+    private final ScheduledExecutorService rebuilder;
+
+    private final Map<Long, SuggestSource> sources = new ConcurrentHashMap<>();
+    private final Map<Long, Long> unitsSold = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean structureDirty;
+    private volatile boolean weightsDirty;
+
+    @Autowired
+    public BookSuggestIndex(SalesDao salesDao,
+                            @Value("${bookstore.suggest.rebuild-delay-ms:500}") long rebuildDelayMs) {
+        this.salesDao = salesDao;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Changes within one delay are folded into a single rebuild
+        rebuilder.scheduleWithFixedDelay(this::rebuildIfStale, rebuildDelayMs, rebuildDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        sources.clear();
+        for (Book book : books) {
+            sources.put(book.getId(), new SuggestSource(book.getId(), book.getTitle(), book.getAuthor()));
+        }
+        unitsSold.clear();
+        unitsSold.putAll(salesDao.findUnitsSoldByBook());
+        // Startup or a full reload: build right away rather than serve an empty index until the next tick
+        rebuild();
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        sources.put(book.getId(), new SuggestSource(book.getId(), book.getTitle(), book.getAuthor()));
+        structureDirty = true;
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        if (sources.remove(bookId) != null) {
+            structureDirty = true;
+        }
+    }
+
+    /**
+     * Record units sold so that best sellers rank first
+     * @param bookId Book ID
+     * @param quantity Units sold, negative when a sale stops counting, e.g. on cancellation
+     */
+    public void recordSale(Long bookId, long quantity) {
+        unitsSold.compute(bookId, (id, units) -> {
+            long total = (units == null ? 0 : units) + quantity;
+            return total > 0 ? total : null;
+        });
+        weightsDirty = true;
+    }
+
+    /**
+     * Find the best-selling completions of a prefix
+     * @param prefix Text typed so far
+     * @param limit Maximum number of suggestions
+     * @return Suggestions ordered by descending sales
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = TextAnalyzer.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+
+        int lo = current.lowerBound(normalized);
+        int hi = current.lowerBound(normalized + Character.MAX_VALUE);
+        if (lo >= hi) {
+            return Collections.emptyList();
+        }
+
+        // Best-first walk: each queued range is represented by its heaviest key
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> current.compareKeys(a[2], b[2]));
+        ranges.add(new int[]{lo, hi, current.argMax(lo, hi)});
+
+        List<SuggestionDTO> suggestions = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            int entry = current.keyEntries[best];
+            if (seen.add(entry)) {
+                suggestions.add(current.entries[entry]);
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, current.argMax(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], current.argMax(best + 1, range[1])});
+            }
+        }
+        return suggestions;
+    }
+
+    // Runs on the rebuild thread
+    private void rebuildIfStale() {
+        boolean weightsExpired = weightsDirty
+                && System.currentTimeMillis() - snapshot.builtAt > WEIGHT_REFRESH_INTERVAL_MS;
+        if (structureDirty || weightsExpired) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                // Keep serving the previous snapshot; the flags are set again so the next tick retries
+                structureDirty = true;
+                logger.error("Rebuilding the suggest index failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void rebuild() {
+        // Cleared first, so changes made while building mark the new snapshot stale again
+        structureDirty = false;
+        weightsDirty = false;
+        snapshot = build();
+    }
+
+    // Helper method to build a fresh immutable snapshot from the current books and sales
+    private Snapshot build() {
+        Map<String, EntryBuilder> titles = new HashMap<>();
+        Map<String, EntryBuilder> authors = new HashMap<>();
+        for (SuggestSource source : sources.values()) {
+            long sales = unitsSold.getOrDefault(source.bookId, 0L);
+            addEntry(titles, source.title, SuggestionDTO.TYPE_TITLE, source.bookId, sales);
+            addEntry(authors, source.author, SuggestionDTO.TYPE_AUTHOR, null, sales);
+        }
+
+        List<EntryBuilder> builders = new ArrayList<>(titles.size() + authors.size());
+        builders.addAll(titles.values());
+        builders.addAll(authors.values());
+
+        List<KeyRef> keys = new ArrayList<>();
+        SuggestionDTO[] entries = new SuggestionDTO[builders.size()];
+        long[] entryWeights = new long[builders.size()];
+        for (int i = 0; i < builders.size(); i++) {
+            EntryBuilder builder = builders.get(i);
+            entries[i] = new SuggestionDTO(builder.text, builder.type, builder.bookId);
+            entryWeights[i] = builder.weight;
+            String normalized = builder.normalized;
+            for (int start = 0; start < normalized.length(); start++) {
+                if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                    keys.add(new KeyRef(normalized.substring(start), i));
+                }
+            }
+        }
+        keys.sort((a, b) -> a.key.compareTo(b.key));
+
+        int size = keys.size();
+        String[] sortedKeys = new String[size];
+        int[] keyEntries = new int[size];
+        long[] weights = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = keys.get(i).key;
+            keyEntries[i] = keys.get(i).entry;
+            weights[i] = entryWeights[keyEntries[i]];
+        }
+        return new Snapshot(sortedKeys, keyEntries, weights, entries);
+    }
+
+    private void addEntry(Map<String, EntryBuilder> entries, String text, String type, Long bookId, long sales) {
+        String normalized = TextAnalyzer.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        EntryBuilder builder = entries.computeIfAbsent(normalized, k -> new EntryBuilder(k, text, type));
+        // Weight is sales plus one so that unsold books still rank among themselves
+        builder.weight += sales + 1;
+        if (bookId != null && (builder.bookId == null || sales > builder.bestBookSales)) {
+            builder.bookId = bookId;
+            builder.text = text;
+            builder.bestBookSales = sales;
+        }
+    }
+
+    private static final class SuggestSource {
+        private final Long bookId;
+        private final String title;
+        private final String author;
+
+        private SuggestSource(Long bookId, String title, String author) {
+            this.bookId = bookId;
+            this.title = title;
+            this.author = author;
+        }
+    }
+
+    private static final class KeyRef {
+        private final String key;
+        private final int entry;
+
+        private KeyRef(String key, int entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    private static final class EntryBuilder {
+        private final String normalized;
+        private final String type;
+        private String text;
+        private Long bookId;
+        private long bestBookSales = -1;
+        private long weight;
+
+        private EntryBuilder(String normalized, String text, String type) {
+            this.normalized = normalized;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Immutable sorted key array with a max segment tree over the key weights
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new long[0], new SuggestionDTO[0]);
+
+        private final String[] keys;
+        private final int[] keyEntries;
+        private final long[] weights;
+        private final SuggestionDTO[] entries;
+        private final int[] tree;
+        private final int leaves;
+        private final long builtAt = System.currentTimeMillis();
+
+        private Snapshot(String[] keys, int[] keyEntries, long[] weights, SuggestionDTO[] entries) {
+            this.keys = keys;
+            this.keyEntries = keyEntries;
+            this.weights = weights;
+            this.entries = entries;
+
+            int n = 1;
+            while (n < keys.length) {
+                n <<= 1;
+            }
+            this.leaves = n;
+            this.tree = new int[2 * n];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < keys.length; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // Index of the heaviest key in [from, to)
+        int argMax(int from, int to) {
+            int best = -1;
+            for (int lo = from + leaves, hi = to + leaves; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) {
+                    best = better(best, tree[lo++]);
+                }
+                if ((hi & 1) == 1) {
+                    best = better(best, tree[--hi]);
+                }
+            }
+            return best;
+        }
+
+        // Orders key indexes heaviest first, then alphabetically
+        int compareKeys(int a, int b) {
+            int byWeight = Long.compare(weights[b], weights[a]);
+            return byWeight != 0 ? byWeight : Integer.compare(a, b);
+        }
+
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            return compareKeys(a, b) <= 0 ? a : b;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bookstore.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filters for faceted catalog browsing.
+ * Values within one facet are OR-ed, facets are AND-ed; an empty set means "no filter".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetQuery {
+    private Set<Long> categoryIds = new HashSet<>();
+
+    // Keys of BookFacetIndex.PRICE_BUCKETS, e.g. "250-500"
+    private Set<String> priceBuckets = new HashSet<>();
+
+    private Boolean inStock;
+
+    private Set<String> authors = new HashSet<>();
+}
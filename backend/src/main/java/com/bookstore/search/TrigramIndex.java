@@ -0,0 +1,195 @@
+package com.bookstore.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Character-trigram index over the distinct words of the catalog, used to find the
+ * indexed terms closest to a misspelled query word.
+ * The index is over the vocabulary, not over books, so it grows with the number of distinct
+ * words rather than with the number of titles. Candidates are ranked by how many trigrams they
+ * share with the query word, and only the best MAX_CANDIDATES of them get an edit distance
+ * computation, which keeps lookups flat on a large catalog.
+ * Not thread-safe; BookSearchIndex guards it with its own lock.
+ */
+final class TrigramIndex {
+
+    static final int MIN_TERM_LENGTH = 3;
+
+    // Upper bounds on the work done per query word
+    private static final int MAX_CANDIDATES = 512;
+    private static final int MAX_POSTING_SIZE = 20_000;
+
+    // term -> number of indexed books using it, so shared terms survive single removals
+    private final Map<String, Integer> termRefs = new HashMap<>();
+
+    // trigram -> terms containing it
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    void clear() {
+        termRefs.clear();
+        postings.clear();
+    }
+
+    void add(String term) {
+        if (term.length() < MIN_TERM_LENGTH) {
+            return;
+        }
+        if (termRefs.merge(term, 1, Integer::sum) == 1) {
+            for (String trigram : trigrams(term)) {
+                postings.computeIfAbsent(trigram, k -> new HashSet<>()).add(term);
+            }
+        }
+    }
+
+    void remove(String term) {
+        Integer refs = termRefs.get(term);
+        if (refs == null) {
+            return;
+        }
+        if (refs > 1) {
+            termRefs.put(term, refs - 1);
+            return;
+        }
+        termRefs.remove(term);
+        for (String trigram : trigrams(term)) {
+            Set<String> terms = postings.get(trigram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find indexed terms within the allowed edit distance of a word
+     * @param word Normalized query word
+     * @param maxMatches Maximum number of terms to return
+     * @return Matching terms, closest first
+     */
+    List<TermMatch> closestTerms(String word, int maxMatches) {
+        List<TermMatch> matches = new ArrayList<>();
+        if (word.length() < MIN_TERM_LENGTH) {
+            return matches;
+        }
+        int maxEdits = word.length() <= 5 ? 1 : 2;
+
+        // Count the trigrams each term of a plausible length shares with the word
+        Set<String> grams = trigrams(word);
+        Map<String, int[]> overlaps = new HashMap<>();
+        int skipped = 0;
+        for (String trigram : grams) {
+            Set<String> terms = postings.get(trigram);
+            if (terms == null) {
+                continue;
+            }
+            if (terms.size() > MAX_POSTING_SIZE) {
+                skipped++;
+                continue;
+            }
+            for (String term : terms) {
+                if (Math.abs(term.length() - word.length()) <= maxEdits) {
+                    overlaps.computeIfAbsent(term, k -> new int[1])[0]++;
+                }
+            }
+        }
+
+        // One edit changes at most four trigrams, so closer terms cannot share fewer than this
+        int minOverlap = Math.max(1, grams.size() - 4 * maxEdits - skipped);
+
+        // Keep the MAX_CANDIDATES terms with the most shared trigrams; the heap's head is the weakest
+        Comparator<Map.Entry<String, int[]>> byOverlap = Comparator
+                .<Map.Entry<String, int[]>>comparingInt(entry -> entry.getValue()[0])
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<String, int[]>> candidates = new PriorityQueue<>(byOverlap);
+        for (Map.Entry<String, int[]> entry : overlaps.entrySet()) {
+            if (entry.getValue()[0] < minOverlap) {
+                continue;
+            }
+            candidates.add(entry);
+            if (candidates.size() > MAX_CANDIDATES) {
+                candidates.poll();
+            }
+        }
+
+        for (Map.Entry<String, int[]> entry : candidates) {
+            String candidate = entry.getKey();
+            int distance = editDistance(word, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new TermMatch(candidate, distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(TermMatch::getDistance).thenComparing(TermMatch::getTerm));
+        return matches.size() > maxMatches ? matches.subList(0, maxMatches) : matches;
+    }
+
+    // Padded trigrams, so that word starts and ends carry their own grams
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * abandoned as soon as it must exceed maxEdits
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = recycled;
+        }
+        return prev[b.length()];
+    }
+
+    static final class TermMatch {
+        private final String term;
+        private final int distance;
+
+        TermMatch(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+
+        String getTerm() {
+            return term;
+        }
+
+        int getDistance() {
+            return distance;
+        }
+    }
+}
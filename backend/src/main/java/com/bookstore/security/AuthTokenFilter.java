@@ -16,8 +16,13 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Objects;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
+    // EventSource cannot send headers, so this path also takes a scoped token as a query parameter
+    private static final String ORDER_EVENTS_PATH = "/api/orders/events";
+    private static final String TOKEN_PARAM = "token";
+
     @Autowired
     private JwtUtils jwtUtils;
 
@@ -31,7 +36,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            String requiredScope = null;
+            if (jwt == null && ORDER_EVENTS_PATH.equals(request.getServletPath())) {
+                jwt = request.getParameter(TOKEN_PARAM);
+                requiredScope = JwtUtils.ORDER_EVENTS_SCOPE;
+            }
+            // Login tokens carry no scope; scoped tokens are only accepted where their scope is required
+            if (jwt != null && jwtUtils.validateJwtToken(jwt)
+                    && Objects.equals(jwtUtils.getScopeFromJwtToken(jwt), requiredScope)) {
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
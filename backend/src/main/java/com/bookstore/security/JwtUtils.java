@@ -14,12 +14,20 @@ import java.util.Date;
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // Scope of the short-lived tokens that browsers pass in the URL of the order event stream
+    public static final String ORDER_EVENTS_SCOPE = "order-events";
+
+    private static final String SCOPE_CLAIM = "scope";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.scoped-token.expiration:60000}")
+    private int scopedTokenExpirationMs;
+
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
@@ -31,6 +39,32 @@ public class JwtUtils {
                 .compact();
     }
 
+    /**
+     * Generate a short-lived token that is only accepted where the given scope is required.
+     * Meant for URLs, where a token may end up in logs: it cannot be used as a Bearer token.
+     * @param username Subject
+     * @param scope Scope the token is limited to
+     * @return Signed token
+     */
+    public String generateScopedToken(String username, String scope) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(SCOPE_CLAIM, scope)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + scopedTokenExpirationMs))
+                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .compact();
+    }
+
+    public int getScopedTokenExpirationMs() {
+        return scopedTokenExpirationMs;
+    }
+
+    // Scope of a validated token, null for a regular login token
+    public String getScopeFromJwtToken(String token) {
+        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().get(SCOPE_CLAIM, String.class);
+    }
+
     public String getUserNameFromJwtToken(String token) {
         return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
     }
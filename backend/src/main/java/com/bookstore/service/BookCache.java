@@ -0,0 +1,68 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookDTO;
+import com.bookstore.model.Book;
+import com.bookstore.util.BoundedCache;
+import com.bookstore.util.CatalogObserver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of fully built BookDTOs for the product page.
+ * As a CatalogObserver it drops an entry as soon as a book write or a stock change commits.
+ */
+@Component
+public class BookCache implements CatalogObserver {
+
+    private final BoundedCache<Long, BookDTO> cache;
+
+    public BookCache(@Value("${bookstore.cache.books.max-size:10000}") int maxSize,
+                     @Value("${bookstore.cache.books.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Get a book, loading it on a miss
+     * @param id Book ID
+     * @param loader Builds the DTO from the database
+     * @return A copy of the cached DTO, so callers cannot modify the shared instance
+     */
+    public BookDTO get(Long id, Function<Long, BookDTO> loader) {
+        return cache.get(id, loader).toBuilder().build();
+    }
+
+    public BoundedCache.CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        cache.invalidate(book.getId());
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        cache.invalidate(bookId);
+    }
+
+    @Override
+    public void stockAdjusted(Long bookId, int delta) {
+        cache.invalidate(bookId);
+    }
+
+    @Override
+    public void stockWritten(Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            cache.invalidate(bookId);
+        }
+    }
+}
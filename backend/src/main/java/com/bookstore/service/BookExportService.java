@@ -0,0 +1,8 @@
+package com.bookstore.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookExportService {
+    void exportBooks(OutputStream out, FeedFormat format) throws IOException;
+}
@@ -0,0 +1,126 @@
+package com.bookstore.service;
+
+import com.bookstore.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams the whole catalog as CSV or NDJSON.
+ * Rows are read through a forward-only, read-only result set that the MySQL driver streams
+ * row by row, and each row is written out before the next one is read. Nothing is mapped to
+ * entities, so memory stays flat however large the catalog is.
+ * The CSV columns match what BookImportService accepts, so an export can be re-imported.
+ */
+@Service
+public class BookExportServiceImpl implements BookExportService {
+
+    private static final String SELECT_BOOKS =
+            "SELECT b.id, b.title, b.author, b.description, b.isbn, b.price, b.category_id, c.name, " +
+            "b.stock_quantity, b.image_url FROM books b LEFT JOIN categories c ON c.id = b.category_id " +
+            "ORDER BY b.id";
+
+    private static final String[] COLUMNS = {"id", "title", "author", "description", "isbn", "price",
+            "categoryId", "categoryName", "stockQuantity", "imageUrl"};
+
+    // Connector/J only streams a result set row by row for this fetch size
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public BookExportServiceImpl(DataSource dataSource, ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportBooks(OutputStream out, FeedFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == FeedFormat.CSV) {
+                exportCsv(writer);
+            } else {
+                exportNdjson(writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void exportCsv(Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRow((Object[]) COLUMNS);
+        streamRows(rs -> {
+            try {
+                csv.writeRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getBigDecimal(6), getLong(rs, 7), rs.getString(8), getInt(rs, 9), rs.getString(10));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void exportNdjson(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        streamRows(rs -> {
+            try {
+                json.writeStartObject();
+                json.writeNumberField(COLUMNS[0], rs.getLong(1));
+                json.writeStringField(COLUMNS[1], rs.getString(2));
+                json.writeStringField(COLUMNS[2], rs.getString(3));
+                json.writeStringField(COLUMNS[3], rs.getString(4));
+                json.writeStringField(COLUMNS[4], rs.getString(5));
+                BigDecimal price = rs.getBigDecimal(6);
+                if (price != null) {
+                    json.writeNumberField(COLUMNS[5], price);
+                } else {
+                    json.writeNullField(COLUMNS[5]);
+                }
+                json.writeObjectField(COLUMNS[6], getLong(rs, 7));
+                json.writeStringField(COLUMNS[7], rs.getString(8));
+                json.writeObjectField(COLUMNS[8], getInt(rs, 9));
+                json.writeStringField(COLUMNS[9], rs.getString(10));
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        json.flush();
+    }
+
+    private void streamRows(RowCallbackHandler handler) {
+        streamingJdbcTemplate.query(SELECT_BOOKS, handler);
+    }
+
+    private static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer getInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.ImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    ImportResultDTO importBooks(InputStream feed, FeedFormat format) throws IOException;
+}
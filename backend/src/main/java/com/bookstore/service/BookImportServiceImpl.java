@@ -0,0 +1,439 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDao;
+import com.bookstore.dao.CategoryDao;
+import com.bookstore.dto.ImportRejectDTO;
+import com.bookstore.dto.ImportResultDTO;
+import com.bookstore.model.Book;
+import com.bookstore.model.Category;
+import com.bookstore.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk catalog import from a CSV or NDJSON feed.
+ * The feed is parsed as it streams in; valid rows are inserted with plain JDBC batches
+ * (rewritten into multi-row INSERTs by the MySQL driver) and committed every commitInterval
+ * rows, so neither the persistence context nor a single transaction grows with the feed.
+ * Categories and existing ISBNs are resolved once up front instead of per row.
+ * In-memory catalog views are told about the imported books only, one commit interval at a
+ * time, so the cost after the import grows with the feed rather than with the catalog.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookImportServiceImpl.class);
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (title, author, description, isbn, price, category_id, stock_quantity, image_url) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Marks a record that could not be parsed; normalized field names never contain '!'
+    private static final String MALFORMED = "!malformed";
+
+    // Width of the VARCHAR columns generated for Book
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryDao categoryDao;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private CatalogPublisher catalogPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${bookstore.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bookstore.import.commit-interval:10000}")
+    private int commitInterval;
+
+    @Value("${bookstore.import.max-reported-rejects:1000}")
+    private int maxReportedRejects;
+
+    @Autowired
+    public BookImportServiceImpl(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public ImportResultDTO importBooks(InputStream feed, FeedFormat format) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportResultDTO result = new ImportResultDTO();
+        Map<String, Long> categories = loadCategories();
+        Set<String> knownIsbns = loadIsbns();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(feed, StandardCharsets.UTF_8));
+        Iterator<RawRecord> records = format == FeedFormat.CSV ? new CsvRecords(reader) : new NdjsonRecords(reader);
+
+        List<ImportRow> pending = new ArrayList<>(commitInterval);
+        while (records.hasNext()) {
+            RawRecord record = records.next();
+            result.setReceived(result.getReceived() + 1);
+            ImportRow row;
+            try {
+                row = toRow(record, categories);
+            } catch (IllegalArgumentException e) {
+                reject(result, record.line, record.values.get("isbn"), e.getMessage());
+                continue;
+            }
+            if (!knownIsbns.add(row.isbn)) {
+                reject(result, row.line, row.isbn, "Duplicate ISBN");
+                continue;
+            }
+            pending.add(row);
+            if (pending.size() >= commitInterval) {
+                commit(pending, result);
+                pending.clear();
+            }
+        }
+        commit(pending, result);
+
+        result.setElapsedMillis(System.currentTimeMillis() - started);
+        logger.info("Book import: {} received, {} imported, {} rejected in {} ms", result.getReceived(),
+                result.getImported(), result.getRejected(), result.getElapsedMillis());
+        return result;
+    }
+
+    // Helper method to insert one commit interval of rows in a single transaction
+    private void commit(List<ImportRow> rows, ImportResultDTO result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> imported = new ArrayList<>(rows.size());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_BOOK, rows, batchSize, this::bind));
+            result.setImported(result.getImported() + rows.size());
+            rows.forEach(row -> imported.add(row.isbn));
+        } catch (DataAccessException e) {
+            // Some row broke the batch: retry one by one so only the offending rows are rejected
+            logger.warn("Book import batch failed, retrying {} rows individually: {}", rows.size(), e.getMessage());
+            for (ImportRow row : rows) {
+                try {
+                    jdbcTemplate.update(INSERT_BOOK, ps -> bind(ps, row));
+                    result.setImported(result.getImported() + 1);
+                    imported.add(row.isbn);
+                } catch (DataAccessException rowFailure) {
+                    reject(result, row.line, row.isbn, rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        publishImported(imported);
+    }
+
+    // Helper method to pass committed books to the catalog observers, batchSize books per query
+    private void publishImported(List<String> isbns) {
+        for (int from = 0; from < isbns.size(); from += batchSize) {
+            List<String> chunk = isbns.subList(from, Math.min(from + batchSize, isbns.size()));
+            for (Book book : bookDao.findAllByIsbn(chunk)) {
+                catalogPublisher.publishSaved(book);
+            }
+            // Observers keep what they need; do not let the request's persistence context grow with the feed
+            entityManager.clear();
+        }
+    }
+
+    private void bind(PreparedStatement ps, ImportRow row) throws SQLException {
+        ps.setString(1, row.title);
+        ps.setString(2, row.author);
+        if (row.description != null) {
+            ps.setString(3, row.description);
+        } else {
+            ps.setNull(3, Types.LONGVARCHAR);
+        }
+        ps.setString(4, row.isbn);
+        ps.setBigDecimal(5, row.price);
+        ps.setLong(6, row.categoryId);
+        ps.setInt(7, row.stockQuantity);
+        if (row.imageUrl != null) {
+            ps.setString(8, row.imageUrl);
+        } else {
+            ps.setNull(8, Types.VARCHAR);
+        }
+    }
+
+    private void reject(ImportResultDTO result, long line, String isbn, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getRejects().size() < maxReportedRejects) {
+            result.getRejects().add(new ImportRejectDTO(line, isbn, reason));
+        } else {
+            result.setRejectsTruncated(true);
+        }
+    }
+
+    // Category id -> id and lower-cased name -> id, so a feed may reference either
+    private Map<String, Long> loadCategories() {
+        Map<String, Long> categories = new HashMap<>();
+        for (Category category : categoryDao.findAll()) {
+            categories.put("#" + category.getId(), category.getId());
+            categories.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+        }
+        return categories;
+    }
+
+    private Set<String> loadIsbns() {
+        Set<String> isbns = new HashSet<>();
+        jdbcTemplate.query("SELECT isbn FROM books", rs -> {
+            isbns.add(rs.getString(1));
+        });
+        return isbns;
+    }
+
+    // Helper method to validate a raw record; throws IllegalArgumentException with the reject reason
+    private ImportRow toRow(RawRecord record, Map<String, Long> categories) {
+        Map<String, String> values = record.values;
+        if (values.containsKey(MALFORMED)) {
+            throw new IllegalArgumentException("Invalid record: " + values.get(MALFORMED));
+        }
+        ImportRow row = new ImportRow();
+        row.line = record.line;
+        row.title = requireText(values, "title");
+        row.author = requireText(values, "author");
+        row.isbn = requireText(values, "isbn");
+        row.description = optionalText(values.get("description"), Integer.MAX_VALUE, "description");
+        row.imageUrl = optionalText(values.get("imageurl"), MAX_TEXT_LENGTH, "imageUrl");
+
+        String price = requireText(values, "price");
+        try {
+            row.price = new BigDecimal(price).setScale(2, RoundingMode.HALF_EVEN);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        if (row.price.signum() <= 0) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+
+        String stock = requireText(values, "stockquantity");
+        try {
+            row.stockQuantity = Integer.parseInt(stock);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock quantity: " + stock);
+        }
+        if (row.stockQuantity <= 0) {
+            throw new IllegalArgumentException("Stock quantity must be positive");
+        }
+
+        row.categoryId = resolveCategory(values, categories);
+        return row;
+    }
+
+    private Long resolveCategory(Map<String, String> values, Map<String, Long> categories) {
+        String id = values.get("categoryid");
+        if (id != null && !id.isBlank()) {
+            Long categoryId = categories.get("#" + id.trim());
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Category not found with id: " + id.trim());
+            }
+            return categoryId;
+        }
+        String name = values.containsKey("categoryname") ? values.get("categoryname") : values.get("category");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Missing category");
+        }
+        Long categoryId = categories.get(name.trim().toLowerCase(Locale.ROOT));
+        if (categoryId == null) {
+            throw new IllegalArgumentException("Category not found: " + name.trim());
+        }
+        return categoryId;
+    }
+
+    private String requireText(Map<String, String> values, String field) {
+        String value = values.get(field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return optionalText(value, MAX_TEXT_LENGTH, field);
+    }
+
+    private String optionalText(String value, int maxLength, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.length() > maxLength) {
+            throw new IllegalArgumentException(field + " longer than " + maxLength + " characters");
+        }
+        return trimmed;
+    }
+
+    // Field names are matched case-insensitively and without separators: stock_quantity == stockQuantity
+    private static String normalizeField(String name) {
+        return name.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class RawRecord {
+        private final long line;
+        private final Map<String, String> values;
+
+        private RawRecord(long line, Map<String, String> values) {
+            this.line = line;
+            this.values = values;
+        }
+    }
+
+    private static final class ImportRow {
+        private long line;
+        private String title;
+        private String author;
+        private String description;
+        private String isbn;
+        private BigDecimal price;
+        private Long categoryId;
+        private int stockQuantity;
+        private String imageUrl;
+    }
+
+    /**
+     * Base for the feed readers: reads one record ahead so hasNext can skip blank lines
+     */
+    private abstract static class RecordIterator implements Iterator<RawRecord> {
+        private RawRecord nextRecord;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecord == null && !done) {
+                try {
+                    nextRecord = readRecord();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error reading import feed: " + e.getMessage(), e);
+                }
+                done = nextRecord == null;
+            }
+            return nextRecord != null;
+        }
+
+        @Override
+        public RawRecord next() {
+            hasNext();
+            RawRecord record = nextRecord;
+            nextRecord = null;
+            return record;
+        }
+
+        // Returns null at the end of the feed
+        protected abstract RawRecord readRecord() throws IOException;
+    }
+
+    /**
+     * CSV feed; the first record is the header naming the columns
+     */
+    private static final class CsvRecords extends RecordIterator {
+        private final CsvReader csv;
+        private List<String> header;
+
+        private CsvRecords(BufferedReader reader) {
+            this.csv = new CsvReader(reader);
+        }
+
+        @Override
+        protected RawRecord readRecord() throws IOException {
+            List<String> fields;
+            do {
+                fields = csv.next();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (header == null) {
+                header = new ArrayList<>();
+                for (String name : fields) {
+                    header.add(normalizeField(name));
+                }
+                return readRecord();
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new RawRecord(csv.getRecordLine(), values);
+        }
+    }
+
+    /**
+     * NDJSON feed: one JSON object per line, with BookDTO field names
+     */
+    private final class NdjsonRecords extends RecordIterator {
+        private final BufferedReader reader;
+        private long line;
+
+        private NdjsonRecords(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        protected RawRecord readRecord() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            Map<String, String> values = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (node.isObject()) {
+                    node.fields().forEachRemaining(field -> {
+                        if (!field.getValue().isNull()) {
+                            values.put(normalizeField(field.getKey()), field.getValue().asText());
+                        }
+                    });
+                } else {
+                    values.put(MALFORMED, "not a JSON object");
+                }
+            } catch (JsonProcessingException e) {
+                values.put(MALFORMED, "malformed JSON");
+            }
+            return new RawRecord(line, values);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.bookstore.service;
 
+import com.bookstore.dao.KeysetCursor;
 import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetedBooksDTO;
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.search.FacetQuery;
+import com.bookstore.util.JsonSnapshot;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,6 +17,8 @@ public interface BookService {
     
     Page<BookDTO> getAllBooks(Pageable pageable);
     
+    CursorPage<BookDTO> getAllBooks(KeysetCursor cursor, int size);
+    
     BookDTO getBookById(Long id);
     
     BookDTO createBook(BookDTO bookDTO);
@@ -21,7 +29,17 @@ public interface BookService {
     
     Page<BookDTO> searchBooks(String query, Pageable pageable);
     
+    Page<BookDTO> searchBooks(String query, boolean fuzzy, Pageable pageable);
+    
     Page<BookDTO> getBooksByCategory(Long categoryId, Pageable pageable);
     
+    CursorPage<BookDTO> getBooksByCategory(Long categoryId, KeysetCursor cursor, int size);
+    
     List<BookDTO> getRecentBooks();
+    
+    JsonSnapshot getRecentBooksSnapshot();
+    
+    List<SuggestionDTO> suggestBooks(String prefix, int limit);
+    
+    FacetedBooksDTO browseBooks(FacetQuery query, Pageable pageable);
 } 
\ No newline at end of file
@@ -1,18 +1,32 @@
 package com.bookstore.service;
 
 import com.bookstore.dao.BookDao;
+import com.bookstore.dao.KeysetCursor;
 import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetedBooksDTO;
+import com.bookstore.dto.SuggestionDTO;
 import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Book;
 import com.bookstore.model.Category;
 import com.bookstore.repository.CategoryRepository;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.FacetQuery;
+import com.bookstore.util.JsonSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +38,24 @@ public class BookServiceImpl implements BookService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private RecentBooksSnapshot recentBooksSnapshot;
+
+    @Autowired
+    private CatalogPublisher catalogPublisher;
+
     @Override
     public List<BookDTO> getAllBooks() {
         return bookDao.findAll().stream()
@@ -33,14 +65,21 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public Page<BookDTO> getAllBooks(Pageable pageable) {
-        return bookDao.findAll(pageable).map(this::convertToDTO);
+        return bookDao.findAllListings(pageable);
+    }
+
+    @Override
+    public CursorPage<BookDTO> getAllBooks(KeysetCursor cursor, int size) {
+        return bookDao.findAllListings(cursor, size).toCursorPage(Function.identity());
     }
 
     @Override
     public BookDTO getBookById(Long id) {
-        Book book = bookDao.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        return convertToDTO(book);
+        return bookCache.get(id, bookId -> {
+            Book book = bookDao.findById(bookId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+            return convertToDTO(book);
+        });
     }
 
     @Override
@@ -48,6 +87,7 @@ public class BookServiceImpl implements BookService {
     public BookDTO createBook(BookDTO bookDTO) {
         Book book = convertToEntity(bookDTO);
         Book savedBook = bookDao.save(book);
+        catalogPublisher.publishSaved(savedBook);
         return convertToDTO(savedBook);
     }
 
@@ -61,6 +101,7 @@ public class BookServiceImpl implements BookService {
         Book book = convertToEntity(bookDTO);
         book.setId(id);
         Book updatedBook = bookDao.save(book);
+        catalogPublisher.publishSaved(updatedBook);
         return convertToDTO(updatedBook);
     }
 
@@ -71,18 +112,38 @@ public class BookServiceImpl implements BookService {
             throw new ResourceNotFoundException("Book not found with id: " + id);
         }
         bookDao.deleteById(id);
+        catalogPublisher.publishDeleted(id);
     }
 
     @Override
     public Page<BookDTO> searchBooks(String query, Pageable pageable) {
-        return bookDao.searchBooks(query, pageable).map(this::convertToDTO);
+        return searchBooks(query, false, pageable);
+    }
+
+    @Override
+    public Page<BookDTO> searchBooks(String query, boolean fuzzy, Pageable pageable) {
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search(
+                query, fuzzy, indexOffset(pageable), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.getBookIds()), pageable, hits.getTotal());
     }
 
     @Override
     public Page<BookDTO> getBooksByCategory(Long categoryId, Pageable pageable) {
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
-        return bookDao.findByCategory(category, pageable).map(this::convertToDTO);
+        Page<BookDTO> books = bookDao.findListingsByCategory(categoryId, pageable);
+        if (books.isEmpty()) {
+            requireCategory(categoryId);
+        }
+        return books;
+    }
+
+    @Override
+    public CursorPage<BookDTO> getBooksByCategory(Long categoryId, KeysetCursor cursor, int size) {
+        CursorPage<BookDTO> books = bookDao.findListingsByCategory(categoryId, cursor, size)
+                .toCursorPage(Function.identity());
+        if (books.getContent().isEmpty()) {
+            requireCategory(categoryId);
+        }
+        return books;
     }
 
     @Override
@@ -92,6 +153,49 @@ public class BookServiceImpl implements BookService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public JsonSnapshot getRecentBooksSnapshot() {
+        return recentBooksSnapshot.get(this::getRecentBooks);
+    }
+
+    @Override
+    public List<SuggestionDTO> suggestBooks(String prefix, int limit) {
+        return bookSuggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public FacetedBooksDTO browseBooks(FacetQuery query, Pageable pageable) {
+        BookFacetIndex.FacetResult result = bookFacetIndex.browse(
+                query, indexOffset(pageable), pageable.getPageSize());
+        Page<BookDTO> books = new PageImpl<>(loadInOrder(result.getBookIds()), pageable, result.getTotal());
+        return new FacetedBooksDTO(books, result.getFacets());
+    }
+
+    // Helper method to narrow a page offset for the in-memory indexes; past Integer.MAX_VALUE the page is empty anyway
+    private static int indexOffset(Pageable pageable) {
+        return (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+    }
+
+    // Helper method to tell an empty category page apart from an unknown category
+    private void requireCategory(Long categoryId) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found with id: " + categoryId);
+        }
+    }
+
+    // Helper method to load book listings by id, keeping the order of the given ids
+    private List<BookDTO> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, BookDTO> booksById = bookDao.findListingsByIds(ids).stream()
+                .collect(Collectors.toMap(BookDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     // Helper method to convert Entity to DTO
     private BookDTO convertToDTO(Book book) {
         return BookDTO.builder()
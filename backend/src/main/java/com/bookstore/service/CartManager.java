@@ -1,53 +1,48 @@
 package com.bookstore.service;
 
-import com.bookstore.model.Book;
+import com.bookstore.exception.BadRequestException;
 import com.bookstore.util.CartObserver;
+import com.bookstore.util.CartSnapshot;
 import com.bookstore.util.CartSubject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
 
 /**
- * CartManager implemented as a Singleton pattern
- * This class manages shopping carts for all users in the system
+ * Manages shopping carts for all users in the system
+ * Each cart is an immutable CartSnapshot. Every change runs inside ConcurrentHashMap.compute for
+ * its user, so concurrent changes to one cart apply one after the other and none is lost, while
+ * different users never contend. Readers get the current snapshot and can iterate it freely.
  * Also implements CartSubject interface for Observer pattern
  */
 @Component
 public class CartManager implements CartSubject {
-    
-    // Singleton instance
-    private static CartManager instance;
-    
-    // Thread-safe map of user carts: userId -> Map of (bookId -> quantity)
-    private final Map<Long, Map<Long, Integer>> userCarts;
-    
-    // List of observers
-    private final List<CartObserver> observers;
-    
-    // Private constructor to prevent instantiation
-    private CartManager() {
-        userCarts = new ConcurrentHashMap<>();
-        observers = new ArrayList<>();
-    }
-    
-    // Synchronized method to get the singleton instance
-    public static synchronized CartManager getInstance() {
-        if (instance == null) {
-            instance = new CartManager();
-        }
-        return instance;
+
+    // userId -> current cart; empty carts are removed rather than stored
+    private final Map<Long, CartSnapshot> userCarts = new ConcurrentHashMap<>();
+
+    // List of observers; notifications may run on many request threads at once
+    private final CopyOnWriteArrayList<CartObserver> observers = new CopyOnWriteArrayList<>();
+
+    private final int maxLines;
+    private final int maxQuantity;
+
+    @Autowired
+    public CartManager(@Value("${bookstore.cart.max-lines:100}") int maxLines,
+                       @Value("${bookstore.cart.max-quantity:99}") int maxQuantity) {
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
     }
-    
+
     // Observer pattern methods
     @Override
     public void registerObserver(CartObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
-        }
+        observers.addIfAbsent(observer);
     }
 
     @Override
@@ -57,57 +52,91 @@ public class CartManager implements CartSubject {
 
     @Override
     public void notifyObservers(Long userId) {
-        for (CartObserver observer : observers) {
-            observer.update(userId, getCart(userId));
-        }
+        notifyObservers(userId, getCart(userId));
     }
-    
-    // Add a book to a user's cart
-    public void addToCart(Long userId, Long bookId, Integer quantity) {
-        userCarts.computeIfAbsent(userId, k -> new HashMap<>());
-        Map<Long, Integer> cart = userCarts.get(userId);
-        
-        cart.compute(bookId, (k, v) -> (v == null) ? quantity : v + quantity);
-        
-        // Notify observers of the change
-        notifyObservers(userId);
+
+    /**
+     * Add a book to a user's cart
+     * @param userId User ID
+     * @param bookId Book ID
+     * @param quantity Quantity to add to what is already in the cart
+     * @return The updated cart
+     */
+    public CartSnapshot addToCart(Long userId, Long bookId, int quantity) {
+        // Saturate rather than overflow, so that a huge quantity fails the limit check
+        return update(userId, cart ->
+                cart.with(bookId, (int) Math.min((long) cart.quantityOf(bookId) + quantity, Integer.MAX_VALUE)));
     }
-    
-    // Update book quantity in cart
-    public void updateCartItem(Long userId, Long bookId, Integer quantity) {
-        if (userCarts.containsKey(userId)) {
-            Map<Long, Integer> cart = userCarts.get(userId);
-            if (quantity <= 0) {
-                cart.remove(bookId);
-            } else {
-                cart.put(bookId, quantity);
-            }
-            
-            // Notify observers of the change
-            notifyObservers(userId);
-        }
+
+    /**
+     * Set the quantity of a book in a user's cart
+     * @param userId User ID
+     * @param bookId Book ID
+     * @param quantity New quantity; 0 or less removes the book
+     * @return The updated cart
+     */
+    public CartSnapshot updateCartItem(Long userId, Long bookId, int quantity) {
+        return update(userId, cart -> cart.with(bookId, quantity));
     }
-    
-    // Remove a book from a user's cart
-    public void removeFromCart(Long userId, Long bookId) {
-        if (userCarts.containsKey(userId)) {
-            userCarts.get(userId).remove(bookId);
-            
-            // Notify observers of the change
-            notifyObservers(userId);
-        }
+
+    /**
+     * Remove a book from a user's cart
+     * @param userId User ID
+     * @param bookId Book ID
+     * @return The updated cart
+     */
+    public CartSnapshot removeFromCart(Long userId, Long bookId) {
+        return update(userId, cart -> cart.without(bookId));
     }
-    
-    // Get user's cart
-    public Map<Long, Integer> getCart(Long userId) {
-        return userCarts.getOrDefault(userId, new HashMap<>());
+
+    /**
+     * Get user's cart
+     * @param userId User ID
+     * @return Snapshot of the cart, empty if the user has none
+     */
+    public CartSnapshot getCart(Long userId) {
+        return userCarts.getOrDefault(userId, CartSnapshot.EMPTY);
     }
-    
+
     // Clear user's cart
     public void clearCart(Long userId) {
-        userCarts.remove(userId);
-        
-        // Notify observers of the change
-        notifyObservers(userId);
+        if (userCarts.remove(userId) != null) {
+            notifyObservers(userId, CartSnapshot.EMPTY);
+        }
+    }
+
+    // Helper method to apply one change to a cart atomically and notify observers of the result
+    private CartSnapshot update(Long userId, UnaryOperator<CartSnapshot> change) {
+        CartSnapshot[] previous = new CartSnapshot[1];
+        CartSnapshot updated = userCarts.compute(userId, (id, current) -> {
+            CartSnapshot cart = current != null ? current : CartSnapshot.EMPTY;
+            previous[0] = cart;
+            CartSnapshot changed = change.apply(cart);
+            checkLimits(changed);
+            return changed.isEmpty() ? null : changed;
+        });
+        CartSnapshot cart = updated != null ? updated : CartSnapshot.EMPTY;
+        if (cart != previous[0]) {
+            notifyObservers(userId, cart);
+        }
+        return cart;
+    }
+
+    // Thrown inside compute, so a rejected change leaves the cart as it was
+    private void checkLimits(CartSnapshot cart) {
+        if (cart.size() > maxLines) {
+            throw new BadRequestException("A cart can hold at most " + maxLines + " different books");
+        }
+        for (int i = 0; i < cart.size(); i++) {
+            if (cart.getQuantity(i) > maxQuantity) {
+                throw new BadRequestException("At most " + maxQuantity + " copies of a book per cart");
+            }
+        }
+    }
+
+    private void notifyObservers(Long userId, CartSnapshot cart) {
+        for (CartObserver observer : observers) {
+            observer.update(userId, cart);
+        }
     }
-} 
\ No newline at end of file
+}
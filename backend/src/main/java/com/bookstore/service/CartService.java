@@ -0,0 +1,15 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.CartDTO;
+
+public interface CartService {
+    CartDTO getCart(Long userId, String couponCode);
+    
+    CartDTO addItem(Long userId, Long bookId, int quantity);
+    
+    CartDTO updateItem(Long userId, Long bookId, int quantity);
+    
+    CartDTO removeItem(Long userId, Long bookId);
+    
+    void clearCart(Long userId);
+}
@@ -0,0 +1,137 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDao;
+import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CartDTO;
+import com.bookstore.dto.CartItemDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.util.CartSnapshot;
+import com.bookstore.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cart endpoints over CartManager.
+ * The cart itself only holds book ids and quantities; titles and current prices are read for
+ * all lines in one listing query when the cart is shown, and promotions are applied by the
+ * PromotionEngine exactly as at checkout, so the cart total matches the order total.
+ */
+@Service
+public class CartServiceImpl implements CartService {
+
+    @Autowired
+    private CartManager cartManager;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDTO getCart(Long userId, String couponCode) {
+        String coupon = PromotionEngine.normalizeCoupon(couponCode);
+        if (coupon != null && coupon.isEmpty()) {
+            coupon = null;
+        }
+        if (coupon != null && !promotionEngine.isValidCoupon(coupon)) {
+            throw new BadRequestException("Invalid or expired coupon: " + couponCode);
+        }
+        return toDTO(cartManager.getCart(userId), coupon);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDTO addItem(Long userId, Long bookId, int quantity) {
+        if (!bookDao.existsById(bookId)) {
+            throw new ResourceNotFoundException("Book not found: " + bookId);
+        }
+        return toDTO(cartManager.addToCart(userId, bookId, quantity), null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDTO updateItem(Long userId, Long bookId, int quantity) {
+        if (quantity > 0 && !bookDao.existsById(bookId)) {
+            throw new ResourceNotFoundException("Book not found: " + bookId);
+        }
+        return toDTO(cartManager.updateCartItem(userId, bookId, quantity), null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDTO removeItem(Long userId, Long bookId) {
+        return toDTO(cartManager.removeFromCart(userId, bookId), null);
+    }
+
+    @Override
+    public void clearCart(Long userId) {
+        cartManager.clearCart(userId);
+    }
+
+    // Helper method to price a cart snapshot with current book prices and promotions
+    private CartDTO toDTO(CartSnapshot cart, String couponCode) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCouponCode(couponCode);
+
+        List<Long> bookIds = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            bookIds.add(cart.getBookId(i));
+        }
+        Map<Long, BookDTO> books = bookIds.isEmpty() ? Map.of() : bookDao.findListingsByIds(bookIds).stream()
+                .collect(Collectors.toMap(BookDTO::getId, Function.identity()));
+
+        // Books deleted from the catalog since they were added are left out
+        List<BookDTO> lineBooks = new ArrayList<>(cart.size());
+        List<PromotionEngine.Line> lines = new ArrayList<>(cart.size());
+        List<Integer> quantities = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            BookDTO book = books.get(cart.getBookId(i));
+            if (book == null) {
+                continue;
+            }
+            lineBooks.add(book);
+            quantities.add(cart.getQuantity(i));
+            lines.add(new PromotionEngine.Line(book.getId(), book.getCategoryId(),
+                    Money.toMinorUnits(book.getPrice()), cart.getQuantity(i)));
+        }
+        PromotionEngine.Pricing pricing = promotionEngine.price(lines, couponCode);
+
+        long subtotalMinorUnits = 0;
+        int totalItems = 0;
+        for (int i = 0; i < lineBooks.size(); i++) {
+            BookDTO book = lineBooks.get(i);
+            int quantity = quantities.get(i);
+            long lineTotal = Money.lineTotal(Money.toMinorUnits(book.getPrice()), quantity);
+            long discount = pricing.getDiscount(i);
+
+            CartItemDTO item = new CartItemDTO();
+            item.setBookId(book.getId());
+            item.setTitle(book.getTitle());
+            item.setAuthor(book.getAuthor());
+            item.setImageUrl(book.getImageUrl());
+            item.setQuantity(quantity);
+            item.setPrice(book.getPrice());
+            item.setDiscount(discount > 0 ? Money.toBigDecimal(discount) : null);
+            item.setSubtotal(Money.toBigDecimal(lineTotal - discount));
+            cartDTO.getItems().add(item);
+
+            subtotalMinorUnits = Math.addExact(subtotalMinorUnits, lineTotal);
+            totalItems += quantity;
+        }
+        cartDTO.setTotalItems(totalItems);
+        cartDTO.setSubtotal(Money.toBigDecimal(subtotalMinorUnits));
+        cartDTO.setDiscount(Money.toBigDecimal(pricing.getTotalDiscount()));
+        cartDTO.setTotalAmount(Money.toBigDecimal(subtotalMinorUnits - pricing.getTotalDiscount()));
+        return cartDTO;
+    }
+}
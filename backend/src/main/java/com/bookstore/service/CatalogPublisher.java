@@ -0,0 +1,79 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Subject side of the catalog Observer pattern.
+ * Notifies every CatalogObserver bean of book writes. Notifications raised inside
+ * a transaction are deferred until it commits, so observers never see rolled back data.
+ */
+@Component
+public class CatalogPublisher {
+
+    private final List<CatalogObserver> observers;
+
+    @Autowired
+    public CatalogPublisher(List<CatalogObserver> observers) {
+        this.observers = observers;
+    }
+
+    public void publishLoaded(List<Book> books) {
+        for (CatalogObserver observer : observers) {
+            observer.catalogLoaded(books);
+        }
+    }
+
+    public void publishSaved(Book book) {
+        afterCommit(() -> {
+            for (CatalogObserver observer : observers) {
+                observer.bookSaved(book);
+            }
+        });
+    }
+
+    public void publishDeleted(Long bookId) {
+        afterCommit(() -> {
+            for (CatalogObserver observer : observers) {
+                observer.bookDeleted(bookId);
+            }
+        });
+    }
+
+    public void publishStockAdjusted(Long bookId, int delta) {
+        afterCommit(() -> {
+            for (CatalogObserver observer : observers) {
+                observer.stockAdjusted(bookId, delta);
+            }
+        });
+    }
+
+    public void publishStockWritten(Collection<Long> bookIds) {
+        afterCommit(() -> {
+            for (CatalogObserver observer : observers) {
+                observer.stockWritten(bookIds);
+            }
+        });
+    }
+
+    // Helper method to run an action once the current transaction (if any) has committed
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
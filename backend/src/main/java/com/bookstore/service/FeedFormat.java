@@ -0,0 +1,34 @@
+package com.bookstore.service;
+
+import java.util.Locale;
+
+/**
+ * Wire formats of bulk catalog feeds
+ */
+public enum FeedFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    FeedFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Resolve the format of a request
+     * @param format Explicit "csv" or "ndjson", or null
+     * @param contentType Content-Type to fall back to, or null
+     * @return Requested format, CSV by default
+     */
+    public static FeedFormat resolve(String format, String contentType) {
+        if (format != null) {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        }
+        return contentType != null && contentType.contains("json") ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,248 @@
+package com.bookstore.service;
+
+import com.bookstore.model.IdempotencyRecord;
+import com.bookstore.model.IdempotencyStatus;
+import com.bookstore.repository.IdempotencyRecordRepository;
+import com.bookstore.util.BoundedCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Idempotency-Key bookkeeping for write endpoints.
+ * A request first claims its (user, key) pair: duplicates that arrive while the first attempt
+ * is still running are turned away from an in-memory map before touching the database, and
+ * completed keys are answered from a bounded cache. The idempotency_keys table is the source
+ * of truth across restarts and instances; the response is stored in the same transaction as
+ * the work it describes.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final String INSERT_CLAIM =
+            "INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, claim_token, status, " +
+            "created_at, claimed_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final IdempotencyRecordRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BoundedCache<String, StoredResponse> completed;
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+    private final long ttlHours;
+    private final long leaseSeconds;
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            JdbcTemplate jdbcTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${bookstore.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${bookstore.idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${bookstore.idempotency.lease-seconds:60}") long leaseSeconds) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.completed = new BoundedCache<>(cacheSize, ttlHours * 3600_000L);
+        this.ttlHours = ttlHours;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Claim a key for a request
+     * @param userId Requesting user
+     * @param key Idempotency-Key header value
+     * @param request Request body, compared with the body the key was first used with
+     * @return ACQUIRED if the caller should do the work, otherwise what to answer instead
+     */
+    public Claim claim(Long userId, String key, Object request) {
+        String cacheKey = userId + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse stored = completed.get(cacheKey, k -> null);
+        if (stored != null) {
+            return stored.requestHash.equals(requestHash) ? Claim.replay(stored.response) : Claim.MISMATCH;
+        }
+        if (inFlight.putIfAbsent(cacheKey, requestHash) != null) {
+            return Claim.IN_PROGRESS;
+        }
+
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            // Plain JDBC, so a duplicate key does not leave a failed entity in the request's persistence context
+            jdbcTemplate.update(INSERT_CLAIM, userId, key, requestHash, token,
+                    IdempotencyStatus.IN_PROGRESS.name(), now, now);
+            return Claim.acquired(userId, key, token);
+        } catch (DuplicateKeyException e) {
+            // Key already known to the database: completed earlier or held by another instance
+        } catch (RuntimeException e) {
+            inFlight.remove(cacheKey);
+            throw e;
+        }
+
+        Claim claim = null;
+        try {
+            claim = existingClaim(userId, key, requestHash, token, now);
+            return claim;
+        } finally {
+            if (claim == null || !claim.isAcquired()) {
+                inFlight.remove(cacheKey);
+            }
+        }
+    }
+
+    /**
+     * Store the response of a claimed request; must run in the transaction doing the work
+     * @param claim Claim returned by claim()
+     * @param response Response body
+     */
+    public void complete(Claim claim, Object response) {
+        String json = toJson(response);
+        int updated = repository.complete(claim.userId, claim.key, claim.token, IdempotencyStatus.COMPLETED, json);
+        if (updated == 0) {
+            // The lease ran out and another attempt took the key over; let this one roll back
+            throw new IllegalStateException("Idempotency-Key claim expired: " + claim.key);
+        }
+
+        String cacheKey = claim.userId + ":" + claim.key;
+        String requestHash = inFlight.get(cacheKey);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completed.get(cacheKey, k -> new StoredResponse(requestHash, json));
+                inFlight.remove(cacheKey);
+            }
+        });
+    }
+
+    /**
+     * Give up a claim whose request failed, so that a retry can run again
+     * @param claim Claim returned by claim()
+     */
+    public void release(Claim claim) {
+        try {
+            repository.release(claim.userId, claim.key, claim.token);
+        } finally {
+            inFlight.remove(claim.userId + ":" + claim.key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+    }
+
+    private Claim existingClaim(Long userId, String key, String requestHash, String token, LocalDateTime now) {
+        Optional<IdempotencyRecord> existing = repository.findByUserIdAndIdempotencyKey(userId, key);
+        if (existing.isEmpty()) {
+            // Purged or released in between; the client may simply retry
+            return Claim.IN_PROGRESS;
+        }
+        IdempotencyRecord record = existing.get();
+        if (!record.getRequestHash().equals(requestHash)) {
+            return Claim.MISMATCH;
+        }
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            completed.get(userId + ":" + key, k -> new StoredResponse(requestHash, record.getResponse()));
+            return Claim.replay(record.getResponse());
+        }
+        // Held by an attempt that may have died; take it over once its lease has expired
+        int takenOver = repository.takeOver(record.getId(), token, now, IdempotencyStatus.IN_PROGRESS,
+                now.minusSeconds(leaseSeconds));
+        return takenOver == 1 ? Claim.acquired(userId, key, token) : Claim.IN_PROGRESS;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(toJson(request).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final String response;
+
+        private StoredResponse(String requestHash, String response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Result of claiming an Idempotency-Key
+     */
+    public static final class Claim {
+        public enum State { ACQUIRED, REPLAY, IN_PROGRESS, MISMATCH }
+
+        static final Claim IN_PROGRESS = new Claim(State.IN_PROGRESS, null, null, null, null);
+        static final Claim MISMATCH = new Claim(State.MISMATCH, null, null, null, null);
+
+        private final State state;
+        private final String response;
+        private final Long userId;
+        private final String key;
+        private final String token;
+
+        private Claim(State state, String response, Long userId, String key, String token) {
+            this.state = state;
+            this.response = response;
+            this.userId = userId;
+            this.key = key;
+            this.token = token;
+        }
+
+        static Claim acquired(Long userId, String key, String token) {
+            return new Claim(State.ACQUIRED, null, userId, key, token);
+        }
+
+        static Claim replay(String response) {
+            return new Claim(State.REPLAY, response, null, null, null);
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public boolean isAcquired() {
+            return state == State.ACQUIRED;
+        }
+
+        // Stored JSON response, for REPLAY
+        public String getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import com.bookstore.util.StripedCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stock reservations for order placement, enabled with
+ * bookstore.inventory.reservations.enabled.
+ * Available stock of each ordered book is held in a StripedCounter, so concurrent orders for
+ * one hot book take stock without waiting on its database row lock. Orders placed this way are
+ * saved with stockSettled = false; once they commit, their quantities are written to
+ * books.stock_quantity in periodic batches that also mark the orders settled, in the same
+ * transaction. Only orders still unsettled inside that transaction take stock, so retrying a batch
+ * whose commit succeeded without the acknowledgement arriving takes nothing twice. After a crash the unsettled orders are still in the database, and their stock is
+ * applied on the next start before any reservation is handed out.
+ * Counters are created on first use from the database stock, so memory grows with the number of
+ * books actually ordered rather than with the catalog.
+ * Orders announce their stock change with stockAdjusted when they commit, before the books rows
+ * change; each write-behind batch then announces stockWritten, so that views which reload
+ * stock from the database drop what they read in between.
+ */
+@Component
+public class InventoryReservations implements CatalogObserver {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservations.class);
+
+    private static final String SELECT_STOCK = "SELECT stock_quantity FROM books WHERE id = ?";
+
+    // Stock never goes below zero; an admin edit can set it below what reservations still owe
+    private static final String APPLY_DELTA =
+            "UPDATE books SET stock_quantity = GREATEST(stock_quantity - ?, 0) WHERE id = ?";
+
+    private static final String LOCK_UNSETTLED =
+            "SELECT id FROM orders WHERE id IN (%s) AND stock_settled = FALSE FOR UPDATE";
+
+    private static final String MARK_SETTLED = "UPDATE orders SET stock_settled = TRUE WHERE id IN (%s)";
+
+    private static final String LOCK_STOCK = "SELECT id, stock_quantity FROM books WHERE id IN (%s) FOR UPDATE";
+
+    private static final String SELECT_UNSETTLED =
+            "SELECT o.id, oi.book_id, oi.quantity FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.stock_settled = FALSE";
+
+    private final boolean enabled;
+    private final int maxFlushOrders;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Looked up on use: the publisher is built with every CatalogObserver, this one included
+    private final ObjectProvider<CatalogPublisher> catalogPublisher;
+
+    private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+    private final Queue<Settlement> committed = new ConcurrentLinkedQueue<>();
+
+    // Set once unsettled orders from a previous run have been applied
+    private volatile boolean ready;
+
+    @Autowired
+    public InventoryReservations(@Value("${bookstore.inventory.reservations.enabled:false}") boolean enabled,
+                                 @Value("${bookstore.inventory.reservations.max-flush-orders:1000}") int maxFlushOrders,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectProvider<CatalogPublisher> catalogPublisher) {
+        this.enabled = enabled;
+        this.maxFlushOrders = maxFlushOrders;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogPublisher = catalogPublisher;
+    }
+
+    /**
+     * Whether orders should take stock through reservations rather than from the books table
+     * @return true when enabled and startup reconciliation has finished
+     */
+    public boolean isActive() {
+        return enabled && ready;
+    }
+
+    /**
+     * Reserve stock for all lines of an order, or for none of them.
+     * Must be called inside the order transaction: if it rolls back the stock is released,
+     * if it commits the order is queued for write-behind.
+     * @param quantities Quantity per book id
+     * @return The reservation; check getUnavailable before using it
+     */
+    public Reservation reserve(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Stock, Integer>> taken = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Stock stock = stockOf(line.getKey());
+            if (stock == null || !stock.take(line.getValue())) {
+                for (Map.Entry<Stock, Integer> undo : taken) {
+                    undo.getKey().release(undo.getValue());
+                }
+                return new Reservation(quantities, Collections.singletonList(line.getKey()));
+            }
+            taken.add(Map.entry(stock, line.getValue()));
+        }
+
+        Reservation reservation = new Reservation(quantities, Collections.emptyList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED && reservation.orderId != null) {
+                    committed.add(new Settlement(reservation.orderId, quantities));
+                } else {
+                    for (Map.Entry<Stock, Integer> undo : taken) {
+                        undo.getKey().release(undo.getValue());
+                    }
+                }
+            }
+        });
+        return reservation;
+    }
+
+    /**
+     * Write the stock taken by committed orders to the books table and mark those orders settled
+     */
+    @Scheduled(fixedDelayString = "${bookstore.inventory.reservations.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        List<Settlement> batch;
+        do {
+            batch = new ArrayList<>();
+            Settlement settlement;
+            while (batch.size() < maxFlushOrders && (settlement = committed.poll()) != null) {
+                batch.add(settlement);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                apply(batch);
+            } catch (DataAccessException e) {
+                logger.error("Inventory write-behind failed for {} orders, will retry: {}", batch.size(), e.getMessage());
+                committed.addAll(batch);
+                return;
+            }
+            // Outstanding covers the whole batch, including orders an earlier failed attempt did settle
+            SortedMap<Long, Integer> deltas = sumQuantities(batch);
+            deltas.forEach((bookId, quantity) -> {
+                Stock stock = stocks.get(bookId);
+                if (stock != null) {
+                    stock.outstanding.addAndGet(-quantity);
+                }
+            });
+            catalogPublisher.getObject().publishStockWritten(deltas.keySet());
+        } while (batch.size() == maxFlushOrders);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        // Counters load lazily; the first catalog load is the point where the schema is up to
+        // date and orders from a previous run can be settled
+        if (enabled && !ready) {
+            reconcile();
+            ready = true;
+        }
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        // An admin edit sets the stock outright; stock still waiting for write-behind comes off it
+        Stock stock = stocks.get(book.getId());
+        if (stock != null) {
+            stock.available.reset(book.getStockQuantity() - stock.outstanding.get());
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        stocks.remove(bookId);
+    }
+
+    // Helper method to apply the stock of orders committed but never written, e.g. before a crash
+    private void reconcile() {
+        SortedMap<Long, SortedMap<Long, Integer>> unsettled = new TreeMap<>();
+        jdbcTemplate.query(SELECT_UNSETTLED, rs -> {
+            unsettled.computeIfAbsent(rs.getLong(1), orderId -> new TreeMap<>())
+                    .merge(rs.getLong(2), rs.getInt(3), Integer::sum);
+        });
+        List<Settlement> settlements = new ArrayList<>(unsettled.size());
+        unsettled.forEach((orderId, quantities) -> settlements.add(new Settlement(orderId, quantities)));
+
+        int settled = 0;
+        for (int from = 0; from < settlements.size(); from += maxFlushOrders) {
+            List<Settlement> batch = settlements.subList(from, Math.min(from + maxFlushOrders, settlements.size()));
+            settled += apply(batch);
+            catalogPublisher.getObject().publishStockWritten(sumQuantities(batch).keySet());
+        }
+        if (settled > 0) {
+            logger.info("Settled stock of {} orders left unsettled by the previous run", settled);
+        }
+    }
+
+    // Helper method to settle a batch at most once: only the orders this transaction flips take stock
+    private int apply(List<Settlement> batch) {
+        Integer settled = transactionTemplate.execute(status -> {
+            Object[] orderIds = batch.stream().map(settlement -> settlement.orderId).toArray();
+            Set<Long> unsettled = new HashSet<>(jdbcTemplate.queryForList(
+                    String.format(LOCK_UNSETTLED, placeholders(orderIds.length)), Long.class, orderIds));
+            if (unsettled.isEmpty()) {
+                return 0;
+            }
+            List<Settlement> pending = new ArrayList<>(unsettled.size());
+            for (Settlement settlement : batch) {
+                if (unsettled.contains(settlement.orderId)) {
+                    pending.add(settlement);
+                }
+            }
+            jdbcTemplate.update(String.format(MARK_SETTLED, placeholders(unsettled.size())), unsettled.toArray());
+
+            SortedMap<Long, Integer> deltas = sumQuantities(pending);
+            warnIfShort(deltas);
+            List<Map.Entry<Long, Integer>> lines = new ArrayList<>(deltas.entrySet());
+            jdbcTemplate.batchUpdate(APPLY_DELTA, lines, lines.size(), (ps, line) -> {
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+            });
+            return pending.size();
+        });
+        return settled == null ? 0 : settled;
+    }
+
+    // Helper method to lock the stock rows about to change and log those that cannot cover their delta
+    private void warnIfShort(SortedMap<Long, Integer> deltas) {
+        jdbcTemplate.query(String.format(LOCK_STOCK, placeholders(deltas.size())), rs -> {
+            long bookId = rs.getLong(1);
+            int stock = rs.getInt(2);
+            int delta = deltas.get(bookId);
+            if (stock < delta) {
+                logger.warn("Stock of book {} is {}, below the {} copies settled for reserved orders; setting it to 0",
+                        bookId, stock, delta);
+            }
+        }, deltas.keySet().toArray());
+    }
+
+    private static SortedMap<Long, Integer> sumQuantities(List<Settlement> settlements) {
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+        for (Settlement settlement : settlements) {
+            settlement.quantities.forEach((bookId, quantity) -> deltas.merge(bookId, quantity, Integer::sum));
+        }
+        return deltas;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // Helper method to get the counter of a book, loading it from the database on first use
+    private Stock stockOf(Long bookId) {
+        Stock stock = stocks.get(bookId);
+        if (stock != null) {
+            return stock;
+        }
+        List<Integer> rows = jdbcTemplate.queryForList(SELECT_STOCK, Integer.class, bookId);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return null;
+        }
+        Stock loaded = new Stock(rows.get(0));
+        Stock raced = stocks.putIfAbsent(bookId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private static final class Stock {
+        private final StripedCounter available;
+
+        // Taken by reservations but not yet written to books.stock_quantity
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private Stock(int available) {
+            this.available = new StripedCounter(available);
+        }
+
+        private boolean take(int quantity) {
+            if (!available.tryTake(quantity)) {
+                return false;
+            }
+            outstanding.addAndGet(quantity);
+            return true;
+        }
+
+        private void release(int quantity) {
+            outstanding.addAndGet(-quantity);
+            available.add(quantity);
+        }
+    }
+
+    private static final class Settlement {
+        private final Long orderId;
+        private final Map<Long, Integer> quantities;
+
+        private Settlement(Long orderId, Map<Long, Integer> quantities) {
+            this.orderId = orderId;
+            this.quantities = quantities;
+        }
+    }
+
+    /**
+     * Stock held for one order until its transaction completes
+     */
+    public static final class Reservation {
+        private final SortedMap<Long, Integer> quantities;
+        private final List<Long> unavailable;
+        private volatile Long orderId;
+
+        private Reservation(SortedMap<Long, Integer> quantities, List<Long> unavailable) {
+            this.quantities = quantities;
+            this.unavailable = unavailable;
+        }
+
+        /**
+         * Get the books that could not be reserved; when not empty nothing is held
+         * @return Unknown or out of stock book ids
+         */
+        public List<Long> getUnavailable() {
+            return unavailable;
+        }
+
+        public SortedMap<Long, Integer> getQuantities() {
+            return quantities;
+        }
+
+        // Links the reservation to the saved order so that it is settled on commit
+        public void setOrderId(Long orderId) {
+            this.orderId = orderId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.OrderDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves DELIVERED and CANCELLED orders older than bookstore.orders.archive.after-days from
+ * orders/order_items to orders_archive/order_items_archive, so that listings, searches and
+ * their indexes only cover the orders still in progress or recently finished.
+ * Runs in chunks of bookstore.orders.archive.chunk-size orders, each in its own short
+ * transaction, so row locks are never held on more than one chunk. Archived orders remain
+ * available by id through OrderDao.findById.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private final OrderDao orderDao;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int chunkSize;
+
+    @Autowired
+    public OrderArchiver(OrderDao orderDao,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${bookstore.orders.archive.enabled:true}") boolean enabled,
+                         @Value("${bookstore.orders.archive.after-days:180}") int afterDays,
+                         @Value("${bookstore.orders.archive.chunk-size:500}") int chunkSize) {
+        this.orderDao = orderDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.orders.archive.interval-ms:3600000}",
+               initialDelayString = "${bookstore.orders.archive.initial-delay-ms:60000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        int moved;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> orderDao.archive(cutoff, chunkSize));
+            moved = chunk != null ? chunk : 0;
+            total += moved;
+        } while (moved == chunkSize);
+        if (total > 0) {
+            logger.info("Archived {} orders placed before {}", total, cutoff);
+        }
+    }
+}
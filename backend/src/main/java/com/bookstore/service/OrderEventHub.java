@@ -0,0 +1,203 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.OrderEventDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fan-out of order events to Server-Sent Event streams, one set of streams per user.
+ * Publishing only puts the event into each subscriber's bounded buffer; a small dispatcher pool
+ * writes buffers out, so a slow client never holds up the request that changed the order.
+ * A subscriber whose buffer fills up is disconnected: its EventSource reconnects and the page
+ * reloads the order once, instead of the hub holding an unbounded backlog for it.
+ * Events raised inside a transaction are sent once it commits.
+ */
+@Component
+public class OrderEventHub {
+
+    private static final String EVENT_NAME = "order-status";
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService dispatcher;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final long timeoutMillis;
+
+    @Autowired
+    public OrderEventHub(@Value("${bookstore.orders.events.buffer-size:32}") int bufferSize,
+                         @Value("${bookstore.orders.events.max-streams-per-user:5}") int maxPerUser,
+                         @Value("${bookstore.orders.events.timeout-ms:1800000}") long timeoutMillis,
+                         @Value("${bookstore.orders.events.dispatcher-threads:2}") int dispatcherThreads) {
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.timeoutMillis = timeoutMillis;
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open an event stream for a user
+     * @param userId Subscribing user
+     * @return The emitter to return from the controller
+     * @throws IllegalStateException if the user already has the maximum number of open streams
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.compute(userId, (id, streams) -> {
+            Set<Subscriber> current = streams != null ? streams : ConcurrentHashMap.newKeySet();
+            if (current.size() >= maxPerUser) {
+                throw new IllegalStateException("Too many open event streams");
+            }
+            current.add(subscriber);
+            return current;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Whether anyone is listening, so that publishers can skip gathering event data
+     * @return true if at least one stream is open
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Send an event to every stream of a user, after the current transaction (if any) commits
+     * @param userId Owner of the order
+     * @param event Event to send
+     */
+    public void publish(Long userId, OrderEventDTO event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(userId, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deliver(userId, event);
+            }
+        });
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away
+    @Scheduled(fixedDelayString = "${bookstore.orders.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Set<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                subscriber.heartbeatDue = true;
+                subscriber.schedule();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Set<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+    }
+
+    private void deliver(Long userId, OrderEventDTO event) {
+        Set<Subscriber> streams = subscribers.get(userId);
+        if (streams == null) {
+            return;
+        }
+        for (Subscriber subscriber : streams) {
+            if (subscriber.buffer.offer(event)) {
+                subscriber.schedule();
+            } else {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<OrderEventDTO> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        // At most one drain per subscriber is queued or running, so its events stay in order
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                OrderEventDTO event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(sequence.incrementAndGet()))
+                            .name(EVENT_NAME)
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone or stream already completed
+                remove(this);
+                buffer.clear();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
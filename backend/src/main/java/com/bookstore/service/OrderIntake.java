@@ -0,0 +1,387 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDao;
+import com.bookstore.dao.OrderDao;
+import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderIntakeDTO;
+import com.bookstore.dto.OrderItemDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.User;
+import com.bookstore.util.Money;
+import com.bookstore.search.BookSuggestIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous order intake with group commit.
+ * submit() only queues the order and hands back a ticket. A single worker drains the queue in
+ * batches and places a whole batch in one transaction: the stock rows of every book in the batch
+ * are locked by one SELECT ... FOR UPDATE in id order, orders are accepted or rejected in arrival
+ * order against that stock, and the accepted ones are written with one batch per table.
+ * If the group transaction fails, its orders are placed one by one through OrderService.
+ */
+@Component
+public class OrderIntake {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntake.class);
+
+    private final BlockingQueue<IntakeRequest> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final int maxBatch;
+    private final long resultTtlMillis;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryReservations inventoryReservations;
+
+    @Autowired
+    private CatalogPublisher catalogPublisher;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
+    @Autowired
+    private SalesService salesService;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    private volatile boolean running;
+
+    public OrderIntake(@Value("${bookstore.orders.intake.queue-capacity:10000}") int queueCapacity,
+                       @Value("${bookstore.orders.intake.max-batch:200}") int maxBatch,
+                       @Value("${bookstore.orders.intake.result-ttl-minutes:15}") long resultTtlMinutes) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.resultTtlMillis = TimeUnit.MINUTES.toMillis(resultTtlMinutes);
+    }
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        worker = new Thread(this::drain, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // The worker finishes what is queued before it exits
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queue an order for placement
+     * @param userId Ordering user
+     * @param orderDTO Shipping address and items
+     * @return The queued ticket, or empty if the queue is full
+     */
+    public Optional<OrderIntakeDTO> submit(Long userId, OrderDTO orderDTO) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
+            quantities.merge(itemDTO.getBookId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        String couponCode = PromotionEngine.normalizeCoupon(orderDTO.getCouponCode());
+        if (couponCode != null && couponCode.isEmpty()) {
+            couponCode = null;
+        }
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), userId);
+        tickets.put(ticket.id, ticket);
+        IntakeRequest request = new IntakeRequest(ticket, userId, orderDTO.getShippingAddress(), couponCode, quantities);
+        if (!running || !queue.offer(request)) {
+            tickets.remove(ticket.id);
+            return Optional.empty();
+        }
+        return Optional.of(ticket.current());
+    }
+
+    /**
+     * Find a ticket of a user
+     * @param ticketId Ticket returned by submit
+     * @param userId User the ticket must belong to
+     * @return The ticket, if known and owned by the user
+     */
+    public Optional<Ticket> findTicket(String ticketId, Long userId) {
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null && ticket.userId.equals(userId) ? Optional.of(ticket) : Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.orders.intake.purge-interval-ms:60000}")
+    public void purgeFinished() {
+        long cutoff = System.currentTimeMillis() - resultTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.finishedAt != 0 && ticket.finishedAt < cutoff);
+    }
+
+    private void drain() {
+        List<IntakeRequest> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                IntakeRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Order intake batch failed", e);
+                for (IntakeRequest request : batch) {
+                    request.ticket.finish(OrderIntakeDTO.STATUS_REJECTED, null, null,
+                            "Error creating order: " + e.getMessage());
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<IntakeRequest> batch) {
+        // Reserved stock is not in the books table yet, so group placement would oversell it
+        if (inventoryReservations.isActive()) {
+            placeIndividually(batch);
+            return;
+        }
+        List<Placement> placements;
+        try {
+            placements = transactionTemplate.execute(status -> placeGroup(batch));
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} orders failed, placing them one by one: {}", batch.size(), e.getMessage());
+            placeIndividually(batch);
+            return;
+        }
+        for (Placement placement : placements) {
+            IntakeRequest request = placement.request;
+            if (placement.order == null) {
+                request.ticket.finish(OrderIntakeDTO.STATUS_REJECTED, null, null, placement.problem);
+                continue;
+            }
+            request.quantities.forEach(bookSuggestIndex::recordSale);
+            request.ticket.finish(OrderIntakeDTO.STATUS_PLACED, placement.order.getId(),
+                    placement.order.getTotalAmount(), null);
+        }
+    }
+
+    // Helper method to place a batch of orders in the current transaction
+    private List<Placement> placeGroup(List<IntakeRequest> batch) {
+        Set<Long> bookIds = new TreeSet<>();
+        for (IntakeRequest request : batch) {
+            bookIds.addAll(request.quantities.keySet());
+        }
+        Map<Long, Integer> stock = bookDao.lockStock(bookIds);
+        Map<Long, Book> books = bookDao.findAllById(stock.keySet()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<Placement> placements = new ArrayList<>(batch.size());
+        SortedMap<Long, Integer> taken = new TreeMap<>();
+        List<Order> orders = new ArrayList<>();
+        List<OrderItem> items = new ArrayList<>();
+        for (IntakeRequest request : batch) {
+            String problem = checkStock(request.quantities, stock, books);
+            if (problem == null && request.couponCode != null && !promotionEngine.isValidCoupon(request.couponCode)) {
+                problem = "Invalid or expired coupon: " + request.couponCode;
+            }
+            if (problem != null) {
+                placements.add(new Placement(request, null, problem));
+                continue;
+            }
+
+            Order order = new Order();
+            order.setUser(entityManager.getReference(User.class, request.userId));
+            order.setShippingAddress(request.shippingAddress);
+            order.setStockSettled(true);
+            order.setCouponCode(request.couponCode);
+
+            List<PromotionEngine.Line> lines = new ArrayList<>(request.quantities.size());
+            for (Map.Entry<Long, Integer> line : request.quantities.entrySet()) {
+                lines.add(PromotionEngine.Line.of(books.get(line.getKey()), line.getValue()));
+            }
+            PromotionEngine.Pricing pricing = promotionEngine.price(lines, request.couponCode);
+
+            long totalMinorUnits = 0;
+            int index = 0;
+            for (Map.Entry<Long, Integer> line : request.quantities.entrySet()) {
+                Book book = books.get(line.getKey());
+                stock.merge(book.getId(), -line.getValue(), Integer::sum);
+                taken.merge(book.getId(), line.getValue(), Integer::sum);
+
+                OrderItem orderItem = new OrderItem();
+                orderItem.setOrder(order);
+                orderItem.setBook(book);
+                orderItem.setCategoryId(book.getCategory() != null ? book.getCategory().getId() : 0L);
+                orderItem.setQuantity(line.getValue());
+                orderItem.setPrice(book.getPrice());
+                long discount = pricing.getDiscount(index++);
+                if (discount > 0) {
+                    orderItem.setDiscount(Money.toBigDecimal(discount));
+                }
+                items.add(orderItem);
+                totalMinorUnits = Math.addExact(totalMinorUnits, orderItem.getSubtotalMinorUnits());
+            }
+            order.setTotalAmount(Money.toBigDecimal(totalMinorUnits));
+            orders.add(order);
+            placements.add(new Placement(request, order, null));
+        }
+
+        // The rows are locked and the stock checked above, so every decrement must apply
+        if (!bookDao.decrementStock(taken).isEmpty()) {
+            throw new IllegalStateException("Stock changed under a locked row");
+        }
+        orderDao.insertOrders(orders);
+        orderDao.insertItems(items);
+        salesService.recordPlaced(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        taken.forEach((bookId, quantity) -> catalogPublisher.publishStockAdjusted(bookId, -quantity));
+        return placements;
+    }
+
+    private String checkStock(Map<Long, Integer> quantities, Map<Long, Integer> stock, Map<Long, Book> books) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Book book = books.get(line.getKey());
+            if (book == null) {
+                return "Book not found: " + line.getKey();
+            }
+            if (stock.get(line.getKey()) < line.getValue()) {
+                return "Not enough stock for book: " + book.getTitle();
+            }
+        }
+        return null;
+    }
+
+    private void placeIndividually(List<IntakeRequest> batch) {
+        for (IntakeRequest request : batch) {
+            OrderDTO orderDTO = new OrderDTO();
+            orderDTO.setShippingAddress(request.shippingAddress);
+            orderDTO.setCouponCode(request.couponCode);
+            Set<OrderItemDTO> items = new HashSet<>();
+            request.quantities.forEach((bookId, quantity) ->
+                    items.add(OrderItemDTO.builder().bookId(bookId).quantity(quantity).build()));
+            orderDTO.setOrderItems(items);
+            try {
+                OrderDTO placed = orderService.createOrder(request.userId, orderDTO);
+                request.quantities.forEach(bookSuggestIndex::recordSale);
+                request.ticket.finish(OrderIntakeDTO.STATUS_PLACED, placed.getId(), placed.getTotalAmount(), null);
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                request.ticket.finish(OrderIntakeDTO.STATUS_REJECTED, null, null, e.getMessage());
+            } catch (RuntimeException e) {
+                request.ticket.finish(OrderIntakeDTO.STATUS_REJECTED, null, null,
+                        "Error creating order: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class IntakeRequest {
+        private final Ticket ticket;
+        private final Long userId;
+        private final String shippingAddress;
+        private final String couponCode;
+        private final SortedMap<Long, Integer> quantities;
+
+        private IntakeRequest(Ticket ticket, Long userId, String shippingAddress, String couponCode,
+                              SortedMap<Long, Integer> quantities) {
+            this.ticket = ticket;
+            this.userId = userId;
+            this.shippingAddress = shippingAddress;
+            this.couponCode = couponCode;
+            this.quantities = quantities;
+        }
+    }
+
+    private static final class Placement {
+        private final IntakeRequest request;
+        private final Order order;
+        private final String problem;
+
+        private Placement(IntakeRequest request, Order order, String problem) {
+            this.request = request;
+            this.order = order;
+            this.problem = problem;
+        }
+    }
+
+    /**
+     * State of one queued order
+     */
+    public static final class Ticket {
+        private final String id;
+        private final Long userId;
+        private final CompletableFuture<OrderIntakeDTO> result = new CompletableFuture<>();
+        private volatile long finishedAt;
+
+        private Ticket(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        /**
+         * Get the current status without waiting
+         * @return Final status once placed or rejected, QUEUED before that
+         */
+        public OrderIntakeDTO current() {
+            return result.getNow(new OrderIntakeDTO(id, OrderIntakeDTO.STATUS_QUEUED, null, null, null));
+        }
+
+        // Completes when the order is placed or rejected
+        public CompletableFuture<OrderIntakeDTO> getResult() {
+            return result;
+        }
+
+        private void finish(String status, Long orderId, BigDecimal totalAmount, String message) {
+            finishedAt = System.currentTimeMillis();
+            result.complete(new OrderIntakeDTO(id, status, orderId, totalAmount, message));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderItemDTO;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Converts orders to DTOs for every order endpoint.
+ * Reads order.user, order.orderItems and item.book, so listings should pass orders loaded
+ * with those associations fetched (OrderDao.findAllWithDetails) to stay at a fixed number of queries.
+ */
+@Component
+public class OrderMapper {
+
+    /**
+     * Convert Order entity to OrderDTO
+     * @param order Order entity
+     * @return OrderDTO
+     */
+    public OrderDTO toDTO(Order order) {
+        return toDTO(order, order.getOrderItems());
+    }
+
+    /**
+     * Convert Order entity to OrderDTO with the given items
+     * @param order Order entity
+     * @param items Items of the order, for orders whose items were written outside Order.orderItems
+     * @return OrderDTO
+     */
+    public OrderDTO toDTO(Order order, Collection<OrderItem> items) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(order.getId());
+        orderDTO.setUserId(order.getUser().getId());
+        orderDTO.setUsername(order.getUser().getUsername());
+        orderDTO.setOrderDate(order.getOrderDate());
+        orderDTO.setStatus(order.getStatus());
+        orderDTO.setTotalAmount(order.getTotalAmount());
+        orderDTO.setShippingAddress(order.getShippingAddress());
+        orderDTO.setTrackingNumber(order.getTrackingNumber());
+        orderDTO.setCouponCode(order.getCouponCode());
+
+        // Convert order items
+        orderDTO.setOrderItems(items.stream()
+                .map(this::toItemDTO)
+                .collect(Collectors.toSet()));
+
+        return orderDTO;
+    }
+
+    public OrderItemDTO toItemDTO(OrderItem item) {
+        OrderItemDTO itemDTO = new OrderItemDTO();
+        itemDTO.setId(item.getId());
+        itemDTO.setBookId(item.getBook().getId());
+        itemDTO.setBookTitle(item.getBook().getTitle());
+        itemDTO.setQuantity(item.getQuantity());
+        itemDTO.setPrice(item.getPrice());
+        itemDTO.setDiscount(item.getDiscount());
+        itemDTO.setSubtotal(item.getSubtotal());
+        return itemDTO;
+    }
+}
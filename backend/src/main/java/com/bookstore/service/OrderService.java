@@ -0,0 +1,30 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.KeysetCursor;
+import com.bookstore.dto.BulkStatusResultDTO;
+import com.bookstore.dto.BulkStatusUpdateDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderSearchCriteria;
+import com.bookstore.dto.OrderSearchResultDTO;
+import com.bookstore.dto.OrderSummaryDTO;
+import com.bookstore.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface OrderService {
+    OrderDTO createOrder(Long userId, OrderDTO orderDTO);
+    
+    OrderDTO createOrder(Long userId, OrderDTO orderDTO, IdempotencyStore.Claim claim);
+    
+    CursorPage<OrderSummaryDTO> getOrderHistory(Long userId, Collection<OrderStatus> statuses,
+                                                LocalDateTime from, LocalDateTime to,
+                                                KeysetCursor cursor, int size, boolean includeItems);
+    
+    OrderSearchResultDTO searchOrders(OrderSearchCriteria criteria, KeysetCursor cursor, int size);
+    
+    OrderDTO updateStatus(Long orderId, OrderStatus status, String trackingNumber);
+    
+    BulkStatusResultDTO updateStatuses(BulkStatusUpdateDTO request);
+}
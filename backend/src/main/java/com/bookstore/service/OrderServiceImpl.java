@@ -0,0 +1,358 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDao;
+import com.bookstore.dao.KeysetCursor;
+import com.bookstore.dao.KeysetSlice;
+import com.bookstore.dao.OrderDao;
+import com.bookstore.dao.UserDao;
+import com.bookstore.dto.BulkStatusResultDTO;
+import com.bookstore.dto.BulkStatusUpdateDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.OrderDTO;
+import com.bookstore.dto.OrderEventDTO;
+import com.bookstore.dto.OrderItemDTO;
+import com.bookstore.dto.OrderSearchCriteria;
+import com.bookstore.dto.OrderSearchResultDTO;
+import com.bookstore.dto.OrderStatusResultDTO;
+import com.bookstore.dto.OrderSummaryDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.OrderStatus;
+import com.bookstore.model.User;
+import com.bookstore.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private CatalogPublisher catalogPublisher;
+
+    @Autowired
+    private InventoryReservations inventoryReservations;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private SalesService salesService;
+
+    @Autowired
+    private OrderEventHub orderEventHub;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
+    @Value("${bookstore.orders.search.count-limit:10000}")
+    private long searchCountLimit;
+
+    @Value("${bookstore.orders.bulk-status.max-orders:5000}")
+    private int bulkStatusMaxOrders;
+
+    @Override
+    @Transactional
+    public OrderDTO createOrder(Long userId, OrderDTO orderDTO) {
+        return createOrder(userId, orderDTO, null);
+    }
+
+    /**
+     * Place an order in one transaction.
+     * Stock is taken first with one batch of conditional decrements in ascending book id order:
+     * a line only applies if enough stock is left, and concurrent orders lock shared books in the
+     * same order, so they can neither oversell nor deadlock. If any line fails the whole order
+     * rolls back. When InventoryReservations is active the stock is reserved in memory instead
+     * and written to the books table after commit. The items are inserted in one batch afterwards.
+     * @param userId Ordering user
+     * @param orderDTO Shipping address and items
+     * @param claim Idempotency-Key claim whose stored response commits with the order, or null
+     * @return Created order
+     */
+    @Override
+    @Transactional
+    public OrderDTO createOrder(Long userId, OrderDTO orderDTO, IdempotencyStore.Claim claim) {
+        User user = userDao.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        String couponCode = PromotionEngine.normalizeCoupon(orderDTO.getCouponCode());
+        if (couponCode != null && !couponCode.isEmpty() && !promotionEngine.isValidCoupon(couponCode)) {
+            throw new BadRequestException("Invalid or expired coupon: " + orderDTO.getCouponCode());
+        }
+
+        // Repeated lines for the same book are merged; the TreeMap keeps them in lock order
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
+            quantities.merge(itemDTO.getBookId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        // Hot books are served from in-memory reservations when enabled, otherwise from the books table
+        InventoryReservations.Reservation reservation = null;
+        List<Long> unavailable;
+        if (inventoryReservations.isActive()) {
+            reservation = inventoryReservations.reserve(quantities);
+            unavailable = reservation.getUnavailable();
+        } else {
+            unavailable = bookDao.decrementStock(quantities);
+        }
+
+        // Titles and prices for the items; stock was already taken, so no row lock is needed
+        Map<Long, Book> books = bookDao.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        if (!unavailable.isEmpty()) {
+            Book book = books.get(unavailable.get(0));
+            if (book == null) {
+                throw new ResourceNotFoundException("Book not found: " + unavailable.get(0));
+            }
+            throw new BadRequestException("Not enough stock for book: " + book.getTitle());
+        }
+
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress(orderDTO.getShippingAddress());
+        order.setStockSettled(reservation == null);
+        order.setCouponCode(couponCode == null || couponCode.isEmpty() ? null : couponCode);
+
+        List<PromotionEngine.Line> lines = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            lines.add(PromotionEngine.Line.of(books.get(line.getKey()), line.getValue()));
+        }
+        PromotionEngine.Pricing pricing = promotionEngine.price(lines, order.getCouponCode());
+
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        long totalMinorUnits = 0;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Book book = books.get(line.getKey());
+            int quantity = line.getValue();
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setBook(book);
+            orderItem.setCategoryId(book.getCategory() != null ? book.getCategory().getId() : 0L);
+            orderItem.setQuantity(quantity);
+            orderItem.setPrice(book.getPrice());
+            long discount = pricing.getDiscount(items.size());
+            if (discount > 0) {
+                orderItem.setDiscount(Money.toBigDecimal(discount));
+            }
+            items.add(orderItem);
+            totalMinorUnits = Math.addExact(totalMinorUnits, orderItem.getSubtotalMinorUnits());
+        }
+        order.setTotalAmount(Money.toBigDecimal(totalMinorUnits));
+
+        Order savedOrder = orderDao.save(order);
+        orderDao.insertItems(items);
+        salesService.recordPlaced(Collections.singletonList(savedOrder.getId()));
+        if (reservation != null) {
+            reservation.setOrderId(savedOrder.getId());
+        }
+
+        for (OrderItem item : items) {
+            catalogPublisher.publishStockAdjusted(item.getBook().getId(), -item.getQuantity());
+        }
+        OrderDTO responseDTO = orderMapper.toDTO(savedOrder, items);
+        if (claim != null) {
+            idempotencyStore.complete(claim, responseDTO);
+        }
+        return responseDTO;
+    }
+
+    /**
+     * Get one page of a user's orders, newest first.
+     * The page is a keyset query over (user_id, orderDate, id) that selects the order columns
+     * only, run against both the live and the archived orders and merged. Items, when requested,
+     * are loaded for the whole page in one more query, plus one for archived orders on the page.
+     * @param userId Ordering user
+     * @param statuses Status filter, or null for all
+     * @param from Earliest order date, inclusive, or null
+     * @param to Latest order date, exclusive, or null
+     * @param cursor Current position
+     * @param size Page size
+     * @param includeItems Whether to attach the items of each order
+     * @return Page of order summaries
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryDTO> getOrderHistory(Long userId, Collection<OrderStatus> statuses,
+                                                       LocalDateTime from, LocalDateTime to,
+                                                       KeysetCursor cursor, int size, boolean includeItems) {
+        KeysetSlice<OrderSummaryDTO> slice = orderDao.findSummariesByUser(userId, statuses, from, to, cursor, size);
+        if (includeItems) {
+            Map<Long, OrderSummaryDTO> byId = slice.getContent().stream()
+                    .collect(Collectors.toMap(OrderSummaryDTO::getId, summary -> summary));
+            byId.values().forEach(summary -> summary.setOrderItems(new ArrayList<>()));
+            Set<Long> withoutItems = new HashSet<>(byId.keySet());
+            for (OrderItem item : orderDao.findItemsByOrderIds(byId.keySet())) {
+                byId.get(item.getOrder().getId()).getOrderItems().add(orderMapper.toItemDTO(item));
+                withoutItems.remove(item.getOrder().getId());
+            }
+            // Orders not found in order_items were archived, with their items
+            for (OrderItem item : orderDao.findArchivedItemsByOrderIds(withoutItems)) {
+                byId.get(item.getOrder().getId()).getOrderItems().add(orderMapper.toItemDTO(item));
+            }
+        }
+        return slice.toCursorPage(summary -> summary);
+    }
+
+    /**
+     * Search all orders for the admin listing.
+     * Each page is a keyset query over indexed columns followed by one fetch-join for the details.
+     * The first page also reports how many orders match, counted up to
+     * bookstore.orders.search.count-limit so that a broad search never counts the whole table.
+     * @param criteria Search filters
+     * @param cursor Current position
+     * @param size Page size
+     * @return Page of matching orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSearchResultDTO searchOrders(OrderSearchCriteria criteria, KeysetCursor cursor, int size) {
+        KeysetSlice<Order> slice = orderDao.search(criteria, cursor, size);
+        List<Long> ids = slice.getContent().stream().map(Order::getId).collect(Collectors.toList());
+        CursorPage<OrderDTO> page = new KeysetSlice<>(orderDao.findAllWithDetails(ids), slice.getNext())
+                .toCursorPage(orderMapper::toDTO);
+
+        OrderSearchResultDTO result = new OrderSearchResultDTO();
+        result.setContent(page.getContent());
+        result.setSize(page.getSize());
+        result.setNextCursor(page.getNextCursor());
+        result.setHasNext(page.isHasNext());
+        if (cursor.isFirstPage()) {
+            long count = slice.hasNext() ? orderDao.countMatches(criteria, searchCountLimit) : ids.size();
+            result.setMatchCountExact(count <= searchCountLimit);
+            result.setMatchCount(Math.min(count, searchCountLimit));
+        }
+        return result;
+    }
+
+    /**
+     * Update the status and tracking number of one order
+     * @param orderId Order ID
+     * @param status New status, or null to keep it
+     * @param trackingNumber New tracking number, or null to keep it
+     * @return Updated order
+     */
+    @Override
+    @Transactional
+    public OrderDTO updateStatus(Long orderId, OrderStatus status, String trackingNumber) {
+        Order order = orderDao.findUnarchivedById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
+
+        OrderStatus previous = order.getStatus();
+        if (status != null) {
+            order.setStatus(status);
+        }
+        if (trackingNumber != null) {
+            order.setTrackingNumber(trackingNumber);
+        }
+        Order updatedOrder = orderDao.save(order);
+        if (status != null && previous != status) {
+            salesService.recordStatusChanges(Collections.singletonMap(orderId, previous), status);
+        }
+        if ((status != null && previous != status) || trackingNumber != null) {
+            orderEventHub.publish(updatedOrder.getUser().getId(), new OrderEventDTO(orderId,
+                    updatedOrder.getStatus(), updatedOrder.getTrackingNumber(), LocalDateTime.now()));
+        }
+        return orderMapper.toDTO(updatedOrder);
+    }
+
+    /**
+     * Move many orders to one status.
+     * The selected rows are locked in id order with one SELECT ... FOR UPDATE, which also gives
+     * each order's current status for the per-id result. The updates are then set-based: one
+     * conditional UPDATE for the orders without a tracking number and one JDBC batch for those
+     * with one, both only applying to orders in an allowed prior status.
+     * @param request Target status, and order ids or a filter selecting the orders
+     * @return Result per order id
+     */
+    @Override
+    @Transactional
+    public BulkStatusResultDTO updateStatuses(BulkStatusUpdateDTO request) {
+        OrderStatus target = request.getStatus();
+        List<Long> ids;
+        if (request.getOrderIds() != null && !request.getOrderIds().isEmpty()) {
+            ids = new ArrayList<>(new TreeSet<>(request.getOrderIds()));
+        } else if (request.getFilter() != null) {
+            ids = orderDao.findIdsMatching(request.getFilter(), bulkStatusMaxOrders + 1);
+        } else {
+            throw new BadRequestException("Either orderIds or filter is required");
+        }
+        if (ids.size() > bulkStatusMaxOrders) {
+            throw new BadRequestException("At most " + bulkStatusMaxOrders + " orders can be updated at once");
+        }
+
+        Map<Long, String> trackingNumbers = request.getTrackingNumbers() != null
+                ? request.getTrackingNumbers() : Collections.emptyMap();
+        Set<OrderStatus> from = target.allowedPredecessors();
+        Map<Long, OrderStatus> current = orderDao.lockStatuses(ids);
+
+        List<OrderStatusResultDTO> results = new ArrayList<>(ids.size());
+        List<Long> statusOnly = new ArrayList<>();
+        Map<Long, String> withTracking = new TreeMap<>();
+        for (Long id : ids) {
+            OrderStatus previous = current.get(id);
+            if (previous == null) {
+                results.add(new OrderStatusResultDTO(id, OrderStatusResultDTO.RESULT_NOT_FOUND, null));
+            } else if (!from.contains(previous)) {
+                results.add(new OrderStatusResultDTO(id, OrderStatusResultDTO.RESULT_REJECTED, previous));
+            } else {
+                results.add(new OrderStatusResultDTO(id, OrderStatusResultDTO.RESULT_UPDATED, previous));
+                String trackingNumber = trackingNumbers.get(id);
+                if (trackingNumber != null) {
+                    withTracking.put(id, trackingNumber);
+                } else {
+                    statusOnly.add(id);
+                }
+            }
+        }
+
+        int updated = orderDao.updateStatus(statusOnly, target, from)
+                + orderDao.updateStatusAndTracking(withTracking, target, from);
+
+        Map<Long, OrderStatus> changed = new HashMap<>();
+        for (OrderStatusResultDTO result : results) {
+            if (OrderStatusResultDTO.RESULT_UPDATED.equals(result.getResult())) {
+                changed.put(result.getOrderId(), result.getPreviousStatus());
+            }
+        }
+        salesService.recordStatusChanges(changed, target);
+        if (orderEventHub.hasSubscribers()) {
+            LocalDateTime now = LocalDateTime.now();
+            // Current tracking numbers, so orders updated without a new one keep theirs in the event
+            for (Order order : orderDao.findOwnersAndTracking(changed.keySet())) {
+                orderEventHub.publish(order.getUser().getId(),
+                        new OrderEventDTO(order.getId(), target, order.getTrackingNumber(), now));
+            }
+        }
+        return new BulkStatusResultDTO(target, ids.size(), updated, results);
+    }
+}
@@ -0,0 +1,303 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Promotion;
+import com.bookstore.model.PromotionType;
+import com.bookstore.repository.PromotionRepository;
+import com.bookstore.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Applies promotions to order and cart lines.
+ * Active promotions are compiled into an immutable RuleSet indexed by book id and category id,
+ * with one more such index per coupon code. Pricing a line looks up only the rules keyed to its
+ * book and category plus the storewide ones, so pricing costs O(lines) and never touches the
+ * database. Each line gets the single best discount; promotions do not stack.
+ * A new RuleSet is compiled whenever admins change promotions, and periodically to pick up
+ * changes made on other instances; it replaces the old one with a single volatile write, so
+ * a pricing call always sees one consistent rule set.
+ */
+@Component
+public class PromotionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionEngine.class);
+
+    private final PromotionRepository promotionRepository;
+
+    private volatile RuleSet rules = RuleSet.EMPTY;
+
+    @Autowired
+    public PromotionEngine(PromotionRepository promotionRepository) {
+        this.promotionRepository = promotionRepository;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${bookstore.promotions.refresh-ms:60000}",
+               initialDelayString = "${bookstore.promotions.refresh-ms:60000}")
+    public void reload() {
+        List<Promotion> promotions = promotionRepository.findByActiveTrue();
+        rules = compile(promotions);
+        logger.debug("Compiled {} active promotions", promotions.size());
+    }
+
+    /**
+     * Whether a coupon code is known and currently valid
+     * @param couponCode Code entered by the customer
+     * @return true if at least one promotion of the code is in its validity window
+     */
+    public boolean isValidCoupon(String couponCode) {
+        RuleSet coupon = rules.coupons.get(normalizeCoupon(couponCode));
+        if (coupon == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (Rule rule : coupon.all) {
+            if (rule.isValidAt(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Work out the discount of every line
+     * @param lines Lines to price
+     * @param couponCode Coupon entered by the customer, or null
+     * @return Discount and applied promotion per line, in line order
+     */
+    public Pricing price(List<Line> lines, String couponCode) {
+        RuleSet current = rules;
+        RuleSet coupon = couponCode != null ? current.coupons.get(normalizeCoupon(couponCode)) : null;
+        long now = System.currentTimeMillis();
+
+        Pricing pricing = new Pricing(lines.size());
+        // best[0] is the discount found so far for the line, best[1] its promotion id
+        long[] best = new long[2];
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            best[0] = 0;
+            best[1] = 0;
+            current.pick(line, now, best);
+            if (coupon != null) {
+                coupon.pick(line, now, best);
+            }
+            pricing.discounts[i] = best[0];
+            pricing.promotionIds[i] = best[1];
+            pricing.totalDiscount += best[0];
+        }
+        return pricing;
+    }
+
+    public static String normalizeCoupon(String couponCode) {
+        return couponCode == null ? null : couponCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static RuleSet compile(List<Promotion> promotions) {
+        Map<String, List<Promotion>> byCoupon = new HashMap<>();
+        List<Promotion> automatic = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            if (promotion.getCouponCode() != null && !promotion.getCouponCode().isBlank()) {
+                byCoupon.computeIfAbsent(normalizeCoupon(promotion.getCouponCode()), code -> new ArrayList<>())
+                        .add(promotion);
+            } else {
+                automatic.add(promotion);
+            }
+        }
+        Map<String, RuleSet> coupons = new HashMap<>();
+        byCoupon.forEach((code, couponPromotions) ->
+                coupons.put(code, index(couponPromotions, Collections.emptyMap())));
+        return index(automatic, coupons);
+    }
+
+    // Helper method to index promotions by their scope
+    private static RuleSet index(List<Promotion> promotions, Map<String, RuleSet> coupons) {
+        Map<Long, List<Rule>> byBook = new HashMap<>();
+        Map<Long, List<Rule>> byCategory = new HashMap<>();
+        List<Rule> storewide = new ArrayList<>();
+        List<Rule> all = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            Rule rule = Rule.of(promotion);
+            all.add(rule);
+            if (promotion.getBookId() != null) {
+                byBook.computeIfAbsent(promotion.getBookId(), id -> new ArrayList<>()).add(rule);
+            } else if (promotion.getCategoryId() != null) {
+                byCategory.computeIfAbsent(promotion.getCategoryId(), id -> new ArrayList<>()).add(rule);
+            } else {
+                storewide.add(rule);
+            }
+        }
+        return new RuleSet(toArrays(byBook), toArrays(byCategory), storewide.toArray(new Rule[0]),
+                all.toArray(new Rule[0]), coupons);
+    }
+
+    private static Map<Long, Rule[]> toArrays(Map<Long, List<Rule>> lists) {
+        Map<Long, Rule[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> arrays.put(key, list.toArray(new Rule[0])));
+        return arrays;
+    }
+
+    /**
+     * One line to price
+     */
+    public static final class Line {
+        private final Long bookId;
+        private final Long categoryId;
+        private final long unitMinorUnits;
+        private final int quantity;
+
+        public Line(Long bookId, Long categoryId, long unitMinorUnits, int quantity) {
+            this.bookId = bookId;
+            this.categoryId = categoryId;
+            this.unitMinorUnits = unitMinorUnits;
+            this.quantity = quantity;
+        }
+
+        public static Line of(Book book, int quantity) {
+            // The category is a lazy proxy; reading its id does not load it
+            Long categoryId = book.getCategory() != null ? book.getCategory().getId() : null;
+            return new Line(book.getId(), categoryId, Money.toMinorUnits(book.getPrice()), quantity);
+        }
+    }
+
+    /**
+     * Result of pricing lines, in minor units
+     */
+    public static final class Pricing {
+        private final long[] discounts;
+        private final long[] promotionIds;
+        private long totalDiscount;
+
+        private Pricing(int lines) {
+            this.discounts = new long[lines];
+            this.promotionIds = new long[lines];
+        }
+
+        public long getDiscount(int line) {
+            return discounts[line];
+        }
+
+        // Id of the promotion applied to a line, or 0 when none applies
+        public long getPromotionId(int line) {
+            return promotionIds[line];
+        }
+
+        public long getTotalDiscount() {
+            return totalDiscount;
+        }
+    }
+
+    private static final class RuleSet {
+        private static final Rule[] NONE = new Rule[0];
+        private static final RuleSet EMPTY = new RuleSet(Collections.emptyMap(), Collections.emptyMap(), NONE, NONE,
+                Collections.emptyMap());
+
+        private final Map<Long, Rule[]> byBook;
+        private final Map<Long, Rule[]> byCategory;
+        private final Rule[] storewide;
+        private final Rule[] all;
+        private final Map<String, RuleSet> coupons;
+
+        private RuleSet(Map<Long, Rule[]> byBook, Map<Long, Rule[]> byCategory, Rule[] storewide, Rule[] all,
+                        Map<String, RuleSet> coupons) {
+            this.byBook = byBook;
+            this.byCategory = byCategory;
+            this.storewide = storewide;
+            this.all = all;
+            this.coupons = coupons;
+        }
+
+        // Helper method to improve on best with the rules that apply to the line
+        private void pick(Line line, long now, long[] best) {
+            pick(byBook.getOrDefault(line.bookId, NONE), line, now, best);
+            if (line.categoryId != null) {
+                pick(byCategory.getOrDefault(line.categoryId, NONE), line, now, best);
+            }
+            pick(storewide, line, now, best);
+        }
+
+        private static void pick(Rule[] rules, Line line, long now, long[] best) {
+            for (Rule rule : rules) {
+                if (!rule.isValidAt(now)) {
+                    continue;
+                }
+                long discount = rule.discount(line.unitMinorUnits, line.quantity);
+                if (discount > best[0]) {
+                    best[0] = discount;
+                    best[1] = rule.id;
+                }
+            }
+        }
+    }
+
+    private static final class Rule {
+        private final long id;
+        private final PromotionType type;
+        private final long basisPoints;
+        private final long amountOffMinorUnits;
+        private final int buyQuantity;
+        private final int freeQuantity;
+        private final long startsAt;
+        private final long endsAt;
+
+        private Rule(long id, PromotionType type, long basisPoints, long amountOffMinorUnits,
+                     int buyQuantity, int freeQuantity, long startsAt, long endsAt) {
+            this.id = id;
+            this.type = type;
+            this.basisPoints = basisPoints;
+            this.amountOffMinorUnits = amountOffMinorUnits;
+            this.buyQuantity = buyQuantity;
+            this.freeQuantity = freeQuantity;
+            this.startsAt = startsAt;
+            this.endsAt = endsAt;
+        }
+
+        private static Rule of(Promotion promotion) {
+            BigDecimal percent = promotion.getPercentOff();
+            BigDecimal amount = promotion.getAmountOff();
+            return new Rule(promotion.getId(), promotion.getType(),
+                    percent != null ? percent.movePointRight(2).longValue() : 0,
+                    amount != null ? Money.toMinorUnits(amount) : 0,
+                    promotion.getBuyQuantity() != null ? promotion.getBuyQuantity() : 0,
+                    promotion.getFreeQuantity() != null ? promotion.getFreeQuantity() : 0,
+                    epochMillis(promotion.getStartsAt(), Long.MIN_VALUE),
+                    epochMillis(promotion.getEndsAt(), Long.MAX_VALUE));
+        }
+
+        private boolean isValidAt(long now) {
+            return now >= startsAt && now < endsAt;
+        }
+
+        private long discount(long unitMinorUnits, int quantity) {
+            switch (type) {
+                case PERCENT_OFF:
+                    return Money.percentOf(Money.lineTotal(unitMinorUnits, quantity), basisPoints);
+                case AMOUNT_OFF:
+                    return Money.lineTotal(Math.min(amountOffMinorUnits, unitMinorUnits), quantity);
+                case BUY_N_GET_M:
+                    int group = buyQuantity + freeQuantity;
+                    return group > 0 ? Money.lineTotal(unitMinorUnits, quantity / group * freeQuantity) : 0;
+                default:
+                    return 0;
+            }
+        }
+
+        private static long epochMillis(LocalDateTime time, long fallback) {
+            return time == null ? fallback : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.PromotionDTO;
+
+import java.util.List;
+
+public interface PromotionService {
+    List<PromotionDTO> getAllPromotions();
+    
+    PromotionDTO createPromotion(PromotionDTO promotionDTO);
+    
+    PromotionDTO updatePromotion(Long id, PromotionDTO promotionDTO);
+    
+    void deletePromotion(Long id);
+}
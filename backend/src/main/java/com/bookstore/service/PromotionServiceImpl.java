@@ -0,0 +1,117 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.PromotionDTO;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.model.Promotion;
+import com.bookstore.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class PromotionServiceImpl implements PromotionService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
+    @Override
+    public List<PromotionDTO> getAllPromotions() {
+        return promotionRepository.findAll().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public PromotionDTO createPromotion(PromotionDTO promotionDTO) {
+        validate(promotionDTO);
+        Promotion promotion = new Promotion();
+        copy(promotionDTO, promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        promotionEngine.reload();
+        return convertToDTO(saved);
+    }
+
+    @Override
+    public PromotionDTO updatePromotion(Long id, PromotionDTO promotionDTO) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Promotion not found: " + id));
+        validate(promotionDTO);
+        copy(promotionDTO, promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        promotionEngine.reload();
+        return convertToDTO(saved);
+    }
+
+    @Override
+    public void deletePromotion(Long id) {
+        if (!promotionRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Promotion not found: " + id);
+        }
+        promotionRepository.deleteById(id);
+        promotionEngine.reload();
+    }
+
+    // Helper method to check the fields each promotion type needs
+    private void validate(PromotionDTO dto) {
+        if (dto.getBookId() != null && dto.getCategoryId() != null) {
+            throw new BadRequestException("A promotion applies to a book or a category, not both");
+        }
+        if (dto.getStartsAt() != null && dto.getEndsAt() != null && !dto.getStartsAt().isBefore(dto.getEndsAt())) {
+            throw new BadRequestException("startsAt must be before endsAt");
+        }
+        switch (dto.getType()) {
+            case PERCENT_OFF:
+                if (dto.getPercentOff() == null || dto.getPercentOff().signum() <= 0
+                        || dto.getPercentOff().compareTo(HUNDRED) > 0) {
+                    throw new BadRequestException("percentOff must be above 0 and at most 100");
+                }
+                break;
+            case AMOUNT_OFF:
+                if (dto.getAmountOff() == null || dto.getAmountOff().signum() <= 0) {
+                    throw new BadRequestException("amountOff must be positive");
+                }
+                break;
+            case BUY_N_GET_M:
+                if (dto.getBuyQuantity() == null || dto.getBuyQuantity() < 1
+                        || dto.getFreeQuantity() == null || dto.getFreeQuantity() < 1) {
+                    throw new BadRequestException("buyQuantity and freeQuantity must be at least 1");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void copy(PromotionDTO dto, Promotion promotion) {
+        promotion.setName(dto.getName());
+        promotion.setType(dto.getType());
+        promotion.setBookId(dto.getBookId());
+        promotion.setCategoryId(dto.getCategoryId());
+        String couponCode = PromotionEngine.normalizeCoupon(dto.getCouponCode());
+        promotion.setCouponCode(couponCode == null || couponCode.isEmpty() ? null : couponCode);
+        promotion.setPercentOff(dto.getPercentOff());
+        promotion.setAmountOff(dto.getAmountOff());
+        promotion.setBuyQuantity(dto.getBuyQuantity());
+        promotion.setFreeQuantity(dto.getFreeQuantity());
+        promotion.setActive(dto.isActive());
+        promotion.setStartsAt(dto.getStartsAt());
+        promotion.setEndsAt(dto.getEndsAt());
+    }
+
+    private PromotionDTO convertToDTO(Promotion promotion) {
+        return new PromotionDTO(promotion.getId(), promotion.getName(), promotion.getType(),
+                promotion.getBookId(), promotion.getCategoryId(), promotion.getCouponCode(),
+                promotion.getPercentOff(), promotion.getAmountOff(), promotion.getBuyQuantity(),
+                promotion.getFreeQuantity(), Boolean.TRUE.equals(promotion.getActive()),
+                promotion.getStartsAt(), promotion.getEndsAt());
+    }
+}
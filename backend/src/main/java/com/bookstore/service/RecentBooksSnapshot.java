@@ -0,0 +1,123 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookDTO;
+import com.bookstore.model.Book;
+import com.bookstore.util.CatalogObserver;
+import com.bookstore.util.JsonSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the /api/books/recent response as an immutable pre-serialized snapshot.
+ * The snapshot is only rebuilt after a catalog change that can alter it: a new book newer
+ * than the oldest listed one, or a write or stock change to a listed book.
+ */
+@Component
+public class RecentBooksSnapshot implements CatalogObserver {
+
+    // Length of the list returned by BookDao.findRecentBooks
+    private static final int RECENT_BOOKS = 10;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot current;
+
+    // Bumped by every invalidation; a rebuild is only installed if this did not move meanwhile
+    private long generation;
+
+    @Autowired
+    public RecentBooksSnapshot(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Return the current snapshot, building it if a catalog change invalidated it
+     * @param loader Loads the recent books from the database
+     * @return Serialized recent books with their ETag
+     */
+    public JsonSnapshot get(Supplier<List<BookDTO>> loader) {
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            return snapshot.json;
+        }
+
+        long buildGeneration;
+        synchronized (this) {
+            buildGeneration = generation;
+        }
+        List<BookDTO> books = loader.get();
+        Snapshot rebuilt = new Snapshot(JsonSnapshot.of(objectMapper, books),
+                books.stream().map(BookDTO::getId).collect(Collectors.toSet()),
+                books.stream().mapToLong(BookDTO::getId).min().orElse(Long.MIN_VALUE),
+                books.size());
+        synchronized (this) {
+            if (buildGeneration == generation) {
+                current = rebuilt;
+            }
+        }
+        return rebuilt.json;
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        invalidate();
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        Snapshot snapshot = current;
+        if (snapshot == null || snapshot.bookIds.contains(book.getId())
+                || book.getId() > snapshot.oldestId || snapshot.size < RECENT_BOOKS) {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        Snapshot snapshot = current;
+        if (snapshot == null || snapshot.bookIds.contains(bookId)) {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void stockAdjusted(Long bookId, int delta) {
+        // Listed books carry their stock quantity
+        bookDeleted(bookId);
+    }
+
+    @Override
+    public void stockWritten(Collection<Long> bookIds) {
+        Snapshot snapshot = current;
+        if (snapshot == null || bookIds.stream().anyMatch(snapshot.bookIds::contains)) {
+            invalidate();
+        }
+    }
+
+    private synchronized void invalidate() {
+        generation++;
+        current = null;
+    }
+
+    private static final class Snapshot {
+        private final JsonSnapshot json;
+        private final Set<Long> bookIds;
+        private final long oldestId;
+        private final int size;
+
+        private Snapshot(JsonSnapshot json, Set<Long> bookIds, long oldestId, int size) {
+            this.json = json;
+            this.bookIds = Collections.unmodifiableSet(bookIds);
+            this.oldestId = oldestId;
+            this.size = size;
+        }
+    }
+}
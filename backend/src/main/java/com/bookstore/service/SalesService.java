@@ -0,0 +1,25 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookSalesDTO;
+import com.bookstore.dto.CategorySalesDTO;
+import com.bookstore.dto.DailySalesDTO;
+import com.bookstore.model.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface SalesService {
+    void recordPlaced(Collection<Long> orderIds);
+    
+    void recordStatusChanges(Map<Long, OrderStatus> previousStatuses, OrderStatus status);
+    
+    void rebuild();
+    
+    List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to);
+    
+    List<BookSalesDTO> getTopBooks(LocalDate from, LocalDate to, int limit);
+    
+    List<CategorySalesDTO> getCategorySales(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,124 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.OrderDao;
+import com.bookstore.dao.SalesDao;
+import com.bookstore.dto.BookSalesDTO;
+import com.bookstore.dto.CategorySalesDTO;
+import com.bookstore.dto.DailySalesDTO;
+import com.bookstore.model.OrderStatus;
+import com.bookstore.search.BookSuggestIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the sales rollups in step with orders.
+ * Orders count from the moment they are placed until they are cancelled, on the day they were
+ * placed, so a cancellation takes the order off that same day. Updates join the caller's
+ * transaction; each thread writes to its own rollup slot so that concurrent orders of the same
+ * day do not queue on one row lock.
+ */
+@Service
+public class SalesServiceImpl implements SalesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesServiceImpl.class);
+
+    // Power of two; rows per day (and per book or category and day) in each rollup table
+    private static final int SLOTS = 8;
+
+    @Autowired
+    private SalesDao salesDao;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Override
+    @Transactional
+    public void recordPlaced(Collection<Long> orderIds) {
+        salesDao.addOrders(orderIds, 1, slot());
+    }
+
+    /**
+     * Apply status changes that start or stop an order counting.
+     * The autocomplete sales weights follow the same orders once the change commits.
+     * @param previousStatuses Status of each changed order before the change
+     * @param status New status
+     */
+    @Override
+    @Transactional
+    public void recordStatusChanges(Map<Long, OrderStatus> previousStatuses, OrderStatus status) {
+        List<Long> changed = new ArrayList<>();
+        previousStatuses.forEach((orderId, previous) -> {
+            if (counts(previous) != counts(status)) {
+                changed.add(orderId);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+        int sign = counts(status) ? 1 : -1;
+        salesDao.addOrders(changed, sign, slot());
+
+        Map<Long, Long> units = salesDao.findUnitsByBook(changed);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                units.forEach((bookId, quantity) -> bookSuggestIndex.recordSale(bookId, sign * quantity));
+            }
+        });
+    }
+
+    /**
+     * Recompute the rollups from the stored orders.
+     * Order items from before the stored category are given their book's current category first,
+     * in the same transaction, so the rebuilt rollups and later cancellations agree on it.
+     */
+    @Override
+    @Transactional
+    public void rebuild() {
+        int filled = orderDao.fillItemCategories();
+        if (filled > 0) {
+            logger.info("Stored the category of {} order items written before it was kept", filled);
+        }
+        salesDao.rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to) {
+        return salesDao.findDaily(from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookSalesDTO> getTopBooks(LocalDate from, LocalDate to, int limit) {
+        return salesDao.findTopBooks(from, to, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CategorySalesDTO> getCategorySales(LocalDate from, LocalDate to) {
+        return salesDao.findByCategory(from, to);
+    }
+
+    private static boolean counts(OrderStatus status) {
+        return status != OrderStatus.CANCELLED;
+    }
+
+    private static int slot() {
+        return (int) Thread.currentThread().getId() & (SLOTS - 1);
+    }
+}
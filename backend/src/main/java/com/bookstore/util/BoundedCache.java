@@ -0,0 +1,395 @@
+package com.bookstore.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded in-process cache with TinyLFU admission.
+ * Entries are kept in LRU order; when the cache is full a new key only displaces the LRU
+ * victim if a small count-min sketch says it has been requested more often, so one-off
+ * lookups (crawlers, deep links) cannot flush the hot set.
+ * Hits are served from a ConcurrentHashMap without any lock. The sketch and LRU updates a hit
+ * implies are recorded in small per-thread-striped ring buffers and applied in batches by
+ * whichever thread holds the eviction lock next; when a buffer is full the update is dropped,
+ * which only makes the LRU order and the frequencies slightly less exact.
+ * Each load registers a token for its key, and an invalidation of that key withdraws it, so
+ * the value is only stored if no invalidation of the same key raced the load; loads of other
+ * keys are not affected.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int READ_STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+
+    // key -> token of the latest load in flight; removed by invalidations
+    private final ConcurrentHashMap<K, Object> loads = new ConcurrentHashMap<>();
+
+    // Guards the LRU list, the sketch and the size; lock order is loads bin, then this lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Node<K, V> lru = new Node<>(null, null, 0);
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[READ_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public BoundedCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.sketch = new FrequencySketch(maxSize);
+        lru.prev = lru;
+        lru.next = lru;
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * Return the cached value, loading and caching it on a miss
+     * @param key Cache key
+     * @param loader Computes the value on a miss; may throw to signal "not found"
+     * @return Cached or freshly loaded value
+     */
+    public V get(K key, Function<K, V> loader) {
+        Node<K, V> node = data.get(key);
+        if (node != null && node.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            recordRead(node);
+            return node.value;
+        }
+
+        misses.increment();
+        evictionLock.lock();
+        try {
+            sketch.increment(key);
+            if (node != null && data.remove(key, node)) {
+                unlink(node);
+                evictions.increment();
+            }
+            drainReadBuffers();
+        } finally {
+            evictionLock.unlock();
+        }
+
+        // Registered before the load reads anything, so an invalidation after this point is seen
+        Object token = new Object();
+        loads.put(key, token);
+        try {
+            // Load outside any lock so that a slow query does not block other keys
+            V value = loader.apply(key);
+            if (value != null) {
+                put(key, value, token);
+            }
+            return value;
+        } finally {
+            loads.remove(key, token);
+        }
+    }
+
+    public void invalidate(K key) {
+        loads.remove(key);
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        // Not under the eviction lock: a store holds a loads bin while it waits for that lock
+        loads.clear();
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            data.clear();
+            for (Node<K, V> node = lru.next; node != lru; ) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            lru.prev = lru;
+            lru.next = lru;
+            size = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(), data.size(), maxSize);
+    }
+
+    // Store a loaded value if its load is still the current one for the key
+    private void put(K key, V value, Object token) {
+        loads.computeIfPresent(key, (k, current) -> {
+            if (current != token) {
+                return current;
+            }
+            evictionLock.lock();
+            try {
+                drainReadBuffers();
+                Node<K, V> previous = data.get(key);
+                if (previous == null && size >= maxSize && !admit(key)) {
+                    rejections.increment();
+                    return null;
+                }
+                Node<K, V> node = new Node<>(key, value, System.currentTimeMillis() + ttlMillis);
+                if (previous != null) {
+                    unlink(previous);
+                }
+                data.put(key, node);
+                linkLast(node);
+            } finally {
+                evictionLock.unlock();
+            }
+            return null;
+        });
+    }
+
+    // TinyLFU admission: evict the LRU victim only for a more frequently requested candidate
+    private boolean admit(K candidate) {
+        Node<K, V> victim = lru.next;
+        boolean expired = victim.expiresAt <= System.currentTimeMillis();
+        if (!expired && sketch.frequency(candidate) <= sketch.frequency(victim.key)) {
+            return false;
+        }
+        data.remove(victim.key, victim);
+        unlink(victim);
+        evictions.increment();
+        return true;
+    }
+
+    // Hit path: queue the access, and apply the queued ones if the buffer is filling up and nobody else is
+    private void recordRead(Node<K, V> node) {
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_STRIPES - 1)];
+        if (buffer.offer(node) >= ReadBuffer.DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        Consumer<Node<K, V>> apply = node -> {
+            sketch.increment(node.key);
+            // Entries removed since the read are no longer in the list and stay out of it
+            if (node.next != null) {
+                unlink(node);
+                linkLast(node);
+            }
+        };
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(apply);
+        }
+    }
+
+    private void linkLast(Node<K, V> node) {
+        node.prev = lru.prev;
+        node.next = lru;
+        lru.prev.next = node;
+        lru.prev = node;
+        size++;
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.next == null) {
+            return;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    private static int stripesFor(int processors) {
+        return Math.min(Integer.highestOneBit(Math.max(1, processors - 1)) << 1, 64);
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        // LRU links, guarded by the eviction lock; both null while the node is not in the list
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Lossy ring buffer of recent hits, written by any thread and drained under the eviction lock
+     */
+    private static final class ReadBuffer<K, V> {
+        private static final int SIZE = 16;
+        private static final int DRAIN_THRESHOLD = SIZE / 2;
+
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writes = new AtomicLong();
+
+        // Written only by the drainer
+        private volatile long reads;
+
+        // Returns the number of pending entries; the node is dropped when the buffer is full or contended
+        int offer(Node<K, V> node) {
+            long head = reads;
+            long tail = writes.get();
+            int pending = (int) (tail - head);
+            if (pending >= SIZE || !writes.compareAndSet(tail, tail + 1)) {
+                return pending;
+            }
+            slots.lazySet((int) tail & (SIZE - 1), node);
+            return pending + 1;
+        }
+
+        void drain(Consumer<Node<K, V>> consumer) {
+            long head = reads;
+            long tail = writes.get();
+            for (; head < tail; head++) {
+                int index = (int) head & (SIZE - 1);
+                Node<K, V> node = slots.get(index);
+                if (node == null) {
+                    // Claimed but not written yet; picked up by the next drain
+                    break;
+                }
+                slots.lazySet(index, null);
+                consumer.accept(node);
+            }
+            reads = head;
+        }
+    }
+
+    /**
+     * 4-row count-min sketch of small counters, halved periodically so that old popularity fades
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int expectedSize) {
+            int width = Integer.highestOneBit(Math.max(16, expectedSize) - 1) << 1;
+            this.counters = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counters[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x45D9F3B;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+
+    /**
+     * Point-in-time cache counters
+     */
+    public static final class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long rejections;
+        private final int size;
+        private final int maxSize;
+
+        CacheStats(long hits, long misses, long evictions, long rejections, int size, int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getRejections() {
+            return rejections;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookstore.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable contents of one shopping cart: book ids in ascending order, each with its quantity.
+ * The lines live in two primitive arrays, so a cart costs two small arrays rather than a map
+ * entry, a boxed Long and a boxed Integer per line. Changes return a new snapshot and leave
+ * this one untouched, so a snapshot can be handed out and read without locking.
+ */
+public final class CartSnapshot {
+
+    public static final CartSnapshot EMPTY = new CartSnapshot(new long[0], new int[0]);
+
+    private final long[] bookIds;
+    private final int[] quantities;
+
+    private CartSnapshot(long[] bookIds, int[] quantities) {
+        this.bookIds = bookIds;
+        this.quantities = quantities;
+    }
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public boolean isEmpty() {
+        return bookIds.length == 0;
+    }
+
+    public long getBookId(int line) {
+        return bookIds[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    /**
+     * Get the quantity of a book
+     * @param bookId Book ID
+     * @return Quantity in the cart, 0 if the book is not in it
+     */
+    public int quantityOf(long bookId) {
+        int line = Arrays.binarySearch(bookIds, bookId);
+        return line >= 0 ? quantities[line] : 0;
+    }
+
+    public int getTotalQuantity() {
+        int total = 0;
+        for (int quantity : quantities) {
+            total += quantity;
+        }
+        return total;
+    }
+
+    /**
+     * Set the quantity of a book
+     * @param bookId Book ID
+     * @param quantity New quantity; 0 or less removes the book
+     * @return The changed cart
+     */
+    public CartSnapshot with(long bookId, int quantity) {
+        if (quantity <= 0) {
+            return without(bookId);
+        }
+        int line = Arrays.binarySearch(bookIds, bookId);
+        if (line >= 0) {
+            if (quantities[line] == quantity) {
+                return this;
+            }
+            int[] changed = quantities.clone();
+            changed[line] = quantity;
+            return new CartSnapshot(bookIds, changed);
+        }
+
+        // Insert at the position binarySearch reports, keeping the ids sorted
+        int at = -line - 1;
+        long[] ids = new long[bookIds.length + 1];
+        int[] counts = new int[quantities.length + 1];
+        System.arraycopy(bookIds, 0, ids, 0, at);
+        System.arraycopy(quantities, 0, counts, 0, at);
+        ids[at] = bookId;
+        counts[at] = quantity;
+        System.arraycopy(bookIds, at, ids, at + 1, bookIds.length - at);
+        System.arraycopy(quantities, at, counts, at + 1, quantities.length - at);
+        return new CartSnapshot(ids, counts);
+    }
+
+    /**
+     * Remove a book
+     * @param bookId Book ID
+     * @return The changed cart
+     */
+    public CartSnapshot without(long bookId) {
+        int line = Arrays.binarySearch(bookIds, bookId);
+        if (line < 0) {
+            return this;
+        }
+        if (bookIds.length == 1) {
+            return EMPTY;
+        }
+        long[] ids = new long[bookIds.length - 1];
+        int[] counts = new int[quantities.length - 1];
+        System.arraycopy(bookIds, 0, ids, 0, line);
+        System.arraycopy(quantities, 0, counts, 0, line);
+        System.arraycopy(bookIds, line + 1, ids, line, bookIds.length - line - 1);
+        System.arraycopy(quantities, line + 1, counts, line, quantities.length - line - 1);
+        return new CartSnapshot(ids, counts);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookstore.util;
+
+import com.bookstore.model.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Observer interface for the Observer Pattern
+ * Used to keep in-memory views of the catalog (search indexes, caches)
+ * in sync with book writes
+ */
+public interface CatalogObserver {
+    void catalogLoaded(List<Book> books);
+
+    void bookSaved(Book book);
+
+    void bookDeleted(Long bookId);
+
+    // Stock moves on every order, so it gets a cheaper notification than a full book save
+    default void stockAdjusted(Long bookId, int delta) {
+    }
+
+    // The books rows of these books were written after their stockAdjusted, by deferred stock
+    // write-behind; views that read stock from the database must reload, the deltas are not repeated
+    default void stockWritten(Collection<Long> bookIds) {
+    }
+}
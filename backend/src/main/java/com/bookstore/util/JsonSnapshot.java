@@ -0,0 +1,56 @@
+package com.bookstore.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Immutable, pre-serialized JSON response body with a strong ETag derived from its bytes.
+ * Lets hot read-mostly endpoints answer without touching the database or Jackson, and
+ * answer conditional requests with 304 Not Modified.
+ */
+public final class JsonSnapshot {
+
+    private final byte[] json;
+    private final String etag;
+
+    private JsonSnapshot(byte[] json) {
+        this.json = json;
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+    }
+
+    public static JsonSnapshot of(ObjectMapper objectMapper, Object value) {
+        try {
+            return new JsonSnapshot(objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize snapshot", e);
+        }
+    }
+
+    // Shared by every response; callers must not modify it
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Check an If-None-Match header against this snapshot
+     * @param ifNoneMatch Header value, may be null or a comma separated list
+     * @return true if the client already has this exact representation
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bookstore.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Helpers for amounts held as a long count of minor units (paise for INR).
+ * Sums and line totals are exact long arithmetic that fails with ArithmeticException on
+ * overflow instead of wrapping. BigDecimal is only used at the edges: amounts read from the
+ * database or a request are converted once, rounding half-even to the currency's minor unit,
+ * and converted back when written out.
+ */
+public final class Money {
+
+    private static final Currency DEFAULT_CURRENCY = Currency.getInstance("INR");
+
+    private static final RoundingMode ROUNDING = RoundingMode.HALF_EVEN;
+
+    private static final int FRACTION_DIGITS = DEFAULT_CURRENCY.getDefaultFractionDigits();
+
+    private Money() {
+    }
+
+    /**
+     * Convert an amount to minor units of the default currency
+     * @param amount Amount in major units, e.g. rupees
+     * @return Minor units, rounded half-even
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        Objects.requireNonNull(amount, "amount");
+        return amount.setScale(FRACTION_DIGITS, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert minor units of the default currency to an amount for persistence or the API
+     * @param minorUnits Minor units
+     * @return Amount with the currency's scale
+     */
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, FRACTION_DIGITS);
+    }
+
+    /**
+     * Total of one order or cart line
+     * @param unitMinorUnits Unit price in minor units
+     * @param quantity Quantity
+     * @return Line total in minor units
+     */
+    public static long lineTotal(long unitMinorUnits, int quantity) {
+        return Math.multiplyExact(unitMinorUnits, (long) quantity);
+    }
+
+    /**
+     * Share of an amount in basis points, rounded half-even, with long arithmetic only
+     * @param minorUnits Amount in minor units
+     * @param basisPoints Share, 10000 being the whole amount
+     * @return Share in minor units
+     */
+    public static long percentOf(long minorUnits, long basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long quotient = Math.floorDiv(product, 10_000L);
+        long remainder = Math.floorMod(product, 10_000L);
+        if (remainder > 5_000L || (remainder == 5_000L && (quotient & 1) == 1)) {
+            quotient++;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,126 @@
+package com.bookstore.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Non-negative counter split over cache-line padded stripes.
+ * Each thread takes from its own stripe first, so concurrent takers of the same counter mostly
+ * CAS different cache lines instead of queueing on one. A take that its home stripe cannot
+ * cover borrows from the others and is undone if the stripes together cannot cover it.
+ */
+public class StripedCounter {
+
+    // 16 ints = 64 bytes, so neighbouring stripes never share a cache line
+    private static final int PAD = 16;
+
+    // A take can fail while other takes hold borrowed units in flight; retry before giving up
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+
+    public StripedCounter(int value) {
+        this(defaultStripes(), value);
+    }
+
+    public StripedCounter(int stripes, int value) {
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes - 1)) << (stripes > 1 ? 1 : 0);
+        this.cells = new AtomicIntegerArray(this.stripes * PAD);
+        reset(value);
+    }
+
+    /**
+     * Take n units if available
+     * @param n Units to take, positive
+     * @return Whether the units were taken; nothing is taken otherwise
+     */
+    public boolean tryTake(int n) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (takeOnce(n)) {
+                return true;
+            }
+            if (sum() < n) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public void add(int n) {
+        cells.addAndGet(home() * PAD, n);
+    }
+
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    /**
+     * Spread a new value over the stripes; takes racing with a reset may be lost
+     * @param value New total
+     */
+    public void reset(int value) {
+        int share = Math.max(0, value) / stripes;
+        int rest = Math.max(0, value) - share * stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PAD, share + (i < rest ? 1 : 0));
+        }
+    }
+
+    private boolean takeOnce(int n) {
+        int start = home();
+        int remaining = n;
+        int[] taken = null;
+        for (int i = 0; i < stripes && remaining > 0; i++) {
+            int stripe = (start + i) & (stripes - 1);
+            int got = takeFrom(stripe, remaining);
+            if (got > 0) {
+                if (got < remaining || taken != null) {
+                    if (taken == null) {
+                        taken = new int[stripes];
+                    }
+                    taken[stripe] = got;
+                }
+                remaining -= got;
+            }
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        // Not enough in total: give back what was borrowed
+        if (taken != null) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    cells.addAndGet(stripe * PAD, taken[stripe]);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Helper method to take up to wanted units from one stripe
+    private int takeFrom(int stripe, int wanted) {
+        int index = stripe * PAD;
+        while (true) {
+            int current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            int got = Math.min(current, wanted);
+            if (cells.compareAndSet(index, current, current - got)) {
+                return got;
+            }
+        }
+    }
+
+    private int home() {
+        return (int) Thread.currentThread().getId() & (stripes - 1);
+    }
+
+    private static int defaultStripes() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookstore.model;
+
+import com.bookstore.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals an order's lines three ways: BigDecimal arithmetic, converting price and discount to
+ * minor units on every call, and the minor units cached on OrderItem.
+ * Not a unit test; run it with the main method from the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderItemSubtotalBenchmark {
+
+    @Param({"5", "50"})
+    private int lines;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setQuantity(1 + random.nextInt(5));
+            item.setPrice(BigDecimal.valueOf(10_000 + random.nextInt(200_000), 2));
+            if (i % 3 == 0) {
+                item.setDiscount(BigDecimal.valueOf(random.nextInt(5_000), 2));
+            }
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            BigDecimal line = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            total = total.add(item.getDiscount() == null ? line : line.subtract(item.getDiscount()));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long convertPerCall() {
+        long total = 0;
+        for (OrderItem item : items) {
+            long line = Money.lineTotal(Money.toMinorUnits(item.getPrice()), item.getQuantity());
+            if (item.getDiscount() != null) {
+                line = Math.subtractExact(line, Money.toMinorUnits(item.getDiscount()));
+            }
+            total = Math.addExact(total, line);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long cachedMinorUnits() {
+        long total = 0;
+        for (OrderItem item : items) {
+            total = Math.addExact(total, item.getSubtotalMinorUnits());
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderItemSubtotalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
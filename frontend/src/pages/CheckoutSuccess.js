@@ -1,7 +1,9 @@
-import React, { useEffect } from 'react';
+import React, { useEffect, useState } from 'react';
 import { Link, useNavigate, useLocation } from 'react-router-dom';
 import { useCart } from '../contexts/CartContext';
 import confetti from 'canvas-confetti';
+import { ordersAPI } from '../services/api';
+import { subscribeToOrderEvents } from '../services/orderEvents';
 
 const CheckoutSuccess = () => {
   const location = useLocation();
@@ -11,6 +13,24 @@ const CheckoutSuccess = () => {
   // Get order info from state, if available
   const orderId = location.state?.orderId;
   const totalAmount = location.state?.totalAmount;
+  const [status, setStatus] = useState(null);
+
+  // Show status changes of the new order as they are pushed; polls only while the stream is unavailable
+  useEffect(() => {
+    if (!orderId) {
+      return undefined;
+    }
+    const reload = () => {
+      ordersAPI.getById(orderId)
+        .then(response => setStatus(response.data.status))
+        .catch(err => console.error('Error fetching order status:', err));
+    };
+    return subscribeToOrderEvents((event) => {
+      if (String(event.orderId) === String(orderId)) {
+        setStatus(event.status);
+      }
+    }, reload);
+  }, [orderId]);
   
   // If there's no order info in the state, redirect to home
   useEffect(() => {
@@ -95,6 +115,13 @@ const CheckoutSuccess = () => {
             <span className="font-bold text-blue-700">{orderId}</span>
           </div>
           
+          {status && (
+            <div className="flex justify-between mb-3 pb-3 border-b border-gray-200">
+              <span className="font-medium text-gray-600">Status:</span>
+              <span className="font-bold text-gray-800">{status}</span>
+            </div>
+          )}
+
           {totalAmount && (
             <div className="flex justify-between">
               <span className="font-medium text-gray-600">Total Amount:</span>
@@ -3,6 +3,7 @@ import { useParams, Link, useNavigate } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
 import { getBookImageUrl } from '../utils/imageUtils';
 import { ordersAPI } from '../services/api';
+import { subscribeToOrderEvents } from '../services/orderEvents';
 
 const OrderDetail = () => {
   const { id } = useParams();
@@ -20,14 +21,17 @@ const OrderDetail = () => {
     setRefreshCounter(prev => prev + 1);
   };
 
-  // Set up an interval to refresh order details every 10 seconds
+  // Apply status changes pushed by the server; polls only while the stream is unavailable
   useEffect(() => {
-    const intervalId = setInterval(() => {
-      refreshOrderDetails();
-    }, 10000); // 10 seconds
-
-    return () => clearInterval(intervalId);
-  }, []);
+    if (!currentUser) {
+      return undefined;
+    }
+    return subscribeToOrderEvents((event) => {
+      if (String(event.orderId) === String(id)) {
+        setOrder(prev => prev ? { ...prev, status: event.status, trackingNumber: event.trackingNumber } : prev);
+      }
+    }, refreshOrderDetails);
+  }, [id, currentUser]);
 
   useEffect(() => {
     const fetchOrderDetails = async () => {
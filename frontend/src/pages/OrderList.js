@@ -1,7 +1,8 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
 import { userAPI } from '../services/api';
+import { subscribeToOrderEvents } from '../services/orderEvents';
 
 const OrderList = () => {
   const navigate = useNavigate();
@@ -10,6 +11,12 @@ const OrderList = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
+  // Keyset paging: the API returns one page of orders and a cursor for the next one
+  const [nextCursor, setNextCursor] = useState(null);
+  const [hasNext, setHasNext] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const pagesLoaded = useRef(0);
+
   // Add a refresh counter to force refresh
   const [refreshCounter, setRefreshCounter] = useState(0);
 
@@ -18,14 +25,19 @@ const OrderList = () => {
     setRefreshCounter(prev => prev + 1);
   };
 
-  // Set up an interval to refresh orders every 10 seconds
+  // Apply status changes pushed by the server; polls only while the stream is unavailable
   useEffect(() => {
-    const intervalId = setInterval(() => {
-      refreshOrders();
-    }, 10000); // 10 seconds
-
-    return () => clearInterval(intervalId);
-  }, []);
+    if (!currentUser) {
+      return undefined;
+    }
+    return subscribeToOrderEvents((event) => {
+      setOrders(prev => prev.map(order =>
+        order.id === event.orderId
+          ? { ...order, status: event.status, trackingNumber: event.trackingNumber }
+          : order
+      ));
+    }, refreshOrders);
+  }, [currentUser]);
 
   useEffect(() => {
     const fetchOrders = async () => {
@@ -59,8 +71,18 @@ const OrderList = () => {
         console.log('Orders from API:', response.data);
 
         // If we got orders from API, use them
-        if (response.data && response.data.length > 0) {
-          setOrders(response.data);
+        if (response.data && response.data.content && response.data.content.length > 0) {
+          const firstPage = response.data.content;
+          if (pagesLoaded.current > 1) {
+            // A refresh after "Load more": update the first page and keep the older pages
+            const ids = new Set(firstPage.map(order => order.id));
+            setOrders(prev => [...firstPage, ...prev.filter(order => !ids.has(order.id))]);
+          } else {
+            setOrders(firstPage);
+            setNextCursor(response.data.nextCursor);
+            setHasNext(response.data.hasNext);
+            pagesLoaded.current = 1;
+          }
         }
       } catch (apiErr) {
         console.error('Error fetching orders from API:', apiErr);
@@ -76,6 +98,29 @@ const OrderList = () => {
     fetchOrders();
   }, [currentUser, navigate, refreshCounter]);
 
+  // Append the next page of older orders
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await userAPI.getOrders({ cursor: nextCursor });
+      const page = response.data.content || [];
+      setOrders(prev => {
+        const ids = new Set(prev.map(order => order.id));
+        return [...prev, ...page.filter(order => !ids.has(order.id))];
+      });
+      setNextCursor(response.data.nextCursor);
+      setHasNext(response.data.hasNext);
+      pagesLoaded.current += 1;
+    } catch (apiErr) {
+      console.error('Error fetching more orders from API:', apiErr);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (loading) {
     return (
       <div className="flex justify-center items-center h-96">
@@ -173,11 +218,13 @@ const OrderList = () => {
                 {orders.map((order) => (
                   <tr key={order.id}>
                     <td className="px-6 py-4 whitespace-nowrap">
-                      <div className="text-sm font-medium text-gray-900">{order.orderNumber}</div>
-                      <div className="text-sm text-gray-500">{order.items.length} {order.items.length === 1 ? 'item' : 'items'}</div>
+                      <div className="text-sm font-medium text-gray-900">{order.orderNumber || `#${order.id}`}</div>
+                      {order.items && (
+                        <div className="text-sm text-gray-500">{order.items.length} {order.items.length === 1 ? 'item' : 'items'}</div>
+                      )}
                     </td>
                     <td className="px-6 py-4 whitespace-nowrap">
-                      <div className="text-sm text-gray-900">{formatDate(order.createdAt)}</div>
+                      <div className="text-sm text-gray-900">{formatDate(order.createdAt || order.orderDate)}</div>
                     </td>
                     <td className="px-6 py-4 whitespace-nowrap">
                       <span className={`px-2 py-1 rounded-full text-xs font-medium ${getStatusBadgeClass(order.status)}`}>
@@ -200,6 +247,17 @@ const OrderList = () => {
               </tbody>
             </table>
           </div>
+          {hasNext && (
+            <div className="p-4 text-center border-t border-gray-200">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="px-4 py-2 bg-blue-500 text-white rounded hover:bg-blue-600 transition-colors disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more orders'}
+              </button>
+            </div>
+          )}
         </div>
       )}
     </div>
@@ -12,6 +12,11 @@ const Profile = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
+  // Keyset paging: the API returns one page of orders and a cursor for the next one
+  const [nextCursor, setNextCursor] = useState(null);
+  const [hasNext, setHasNext] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
+
   useEffect(() => {
     const fetchUserData = async () => {
       if (!currentUser) {
@@ -43,8 +48,10 @@ const Profile = () => {
           setUserDetails(profileResponse.data);
 
           // Fetch user orders
-          const ordersResponse = await userAPI.getOrders();
-          setOrders(ordersResponse.data);
+          const ordersResponse = await userAPI.getOrders({ includeItems: true });
+          setOrders(ordersResponse.data.content);
+          setNextCursor(ordersResponse.data.nextCursor);
+          setHasNext(ordersResponse.data.hasNext);
         } catch (apiError) {
           console.log('API error, using current user data as fallback', apiError);
           // Use currentUser as fallback if API fails
@@ -65,6 +72,24 @@ const Profile = () => {
     fetchUserData();
   }, [currentUser]);
 
+  // Append the next page of older orders
+  const loadMoreOrders = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await userAPI.getOrders({ includeItems: true, cursor: nextCursor });
+      setOrders(prev => [...prev, ...(response.data.content || [])]);
+      setNextCursor(response.data.nextCursor);
+      setHasNext(response.data.hasNext);
+    } catch (apiError) {
+      console.error('Error fetching more orders:', apiError);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   // Set mock data for development/demo purposes
   const setMockData = () => {
     // Use currentUser data if available, otherwise use default values
@@ -90,6 +115,7 @@ const Profile = () => {
 
     // No mock orders - start with empty order history
     setOrders([]);
+    setHasNext(false);
 
     // Clear any error since we're showing mock data
     setError(null);
@@ -258,6 +284,17 @@ const Profile = () => {
                 </div>
               </div>
             ))}
+            {hasNext && (
+              <div className="p-6 text-center">
+                <button
+                  onClick={loadMoreOrders}
+                  disabled={loadingMore}
+                  className="px-4 py-2 bg-blue-600 text-white rounded-md hover:bg-blue-700 transition-colors disabled:opacity-50"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more orders'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>
@@ -133,8 +133,8 @@ export const userAPI = {
   updateProfile: (userData) =>
     API.put('/user/profile', userData),
 
-  getOrders: () =>
-    API.get('/user/orders'),
+  getOrders: (params) =>
+    API.get('/user/orders', { params }),
 };
 
 // Orders API
@@ -147,6 +147,9 @@ export const ordersAPI = {
 
   updateStatus: (id, status) =>
     API.patch(`/orders/${id}/status`, { status }),
+
+  getEventsToken: () =>
+    API.post('/orders/events/token'),
 };
 
 // Admin API
@@ -0,0 +1,105 @@
+import API, { ordersAPI } from './api';
+
+// Polling interval used only while the event stream is unavailable
+const POLL_INTERVAL_MS = 10000;
+const MAX_RETRY_DELAY_MS = 60000;
+
+/**
+ * Subscribe to status changes of the current user's orders.
+ * Opens the /orders/events Server-Sent Events stream. EventSource cannot send the
+ * Authorization header, so each connection first fetches a short-lived stream token and
+ * passes it in the URL. While the stream is down (or EventSource is not supported) onPoll is
+ * called every 10 seconds as a fallback, and it is called once more after a reconnect to
+ * catch up on changes missed in between.
+ *
+ * @param {Function} onEvent Called with each OrderEventDTO ({ orderId, status, trackingNumber, changedAt })
+ * @param {Function} onPoll Called to reload the data when events may have been missed
+ * @returns {Function} Closes the subscription
+ */
+export const subscribeToOrderEvents = (onEvent, onPoll) => {
+  let source = null;
+  let pollId = null;
+  let retryId = null;
+  let failures = 0;
+  let closed = false;
+
+  const startPolling = () => {
+    if (!pollId && !closed) {
+      pollId = setInterval(onPoll, POLL_INTERVAL_MS);
+    }
+  };
+
+  const stopPolling = () => {
+    if (pollId) {
+      clearInterval(pollId);
+      pollId = null;
+    }
+  };
+
+  const scheduleReconnect = () => {
+    failures += 1;
+    startPolling();
+    const delay = Math.min(MAX_RETRY_DELAY_MS, 1000 * 2 ** failures);
+    retryId = setTimeout(connect, delay);
+  };
+
+  const connect = async () => {
+    if (closed) {
+      return;
+    }
+    if (typeof EventSource === 'undefined') {
+      startPolling();
+      return;
+    }
+
+    try {
+      const response = await ordersAPI.getEventsToken();
+      if (closed) {
+        return;
+      }
+      const token = encodeURIComponent(response.data.token);
+      source = new EventSource(`${API.defaults.baseURL}/orders/events?token=${token}`);
+
+      source.onopen = () => {
+        const reconnected = failures > 0;
+        failures = 0;
+        stopPolling();
+        if (reconnected) {
+          onPoll();
+        }
+      };
+
+      source.addEventListener('order-status', (e) => {
+        try {
+          onEvent(JSON.parse(e.data));
+        } catch (err) {
+          console.error('Invalid order event:', err);
+        }
+      });
+
+      // The token in the URL expires quickly, so reconnect with a fresh one
+      // instead of letting EventSource retry the old URL
+      source.onerror = () => {
+        source.close();
+        source = null;
+        if (!closed) {
+          scheduleReconnect();
+        }
+      };
+    } catch (err) {
+      console.error('Could not open order event stream:', err);
+      scheduleReconnect();
+    }
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    stopPolling();
+    clearTimeout(retryId);
+    if (source) {
+      source.close();
+    }
+  };
+};